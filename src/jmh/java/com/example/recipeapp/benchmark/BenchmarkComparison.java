@@ -0,0 +1,92 @@
+package com.example.recipeapp.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 2つの JMH の結果（-rf json）を比較する
+ * 誤差（99.9% 信頼区間）が重ならないほど悪化したベンチマークがあれば終了コード 1 で終了する。
+ *
+ * 使い方: BenchmarkComparison &lt;ベースラインの結果&gt; &lt;今回の結果&gt;
+ */
+public final class BenchmarkComparison {
+
+	private BenchmarkComparison() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("使い方: BenchmarkComparison <baseline.json> <result.json>");
+			System.exit(2);
+		}
+		Map<String, JsonNode> baseline = load(new File(args[0]));
+		Map<String, JsonNode> current = load(new File(args[1]));
+
+		int regressions = 0;
+		System.out.printf("%-70s %16s %16s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+		for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+			JsonNode now = entry.getValue();
+			JsonNode before = baseline.get(entry.getKey());
+			if (before == null) {
+				System.out.printf("%-70s %16s %16s %9s%n", entry.getKey(), "-", format(now), "new");
+				continue;
+			}
+
+			double oldScore = score(before);
+			double newScore = score(now);
+			double change = (newScore - oldScore) / oldScore * 100;
+			// 平均時間などは小さいほど、スループットは大きいほど良い
+			boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+			boolean worse = higherIsBetter
+					? newScore + error(now) < oldScore - error(before)
+					: newScore - error(now) > oldScore + error(before);
+			if (worse) {
+				regressions++;
+			}
+			System.out.printf("%-70s %16s %16s %+8.1f%%%s%n", entry.getKey(), format(before), format(now), change,
+					worse ? "  << 悪化" : "");
+		}
+
+		if (regressions > 0) {
+			System.out.println(regressions + " 件のベンチマークがベースラインより悪化しました");
+			System.exit(1);
+		}
+	}
+
+	// ベンチマーク名とパラメーターの組み合わせ → 結果
+	private static Map<String, JsonNode> load(File file) throws IOException {
+		Map<String, JsonNode> results = new LinkedHashMap<>();
+		for (JsonNode result : new ObjectMapper().readTree(file)) {
+			StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+					.replaceFirst("^com\\.example\\.recipeapp\\.", ""));
+			Map<String, String> params = new TreeMap<>();
+			for (Iterator<Map.Entry<String, JsonNode>> it = result.path("params").fields(); it.hasNext(); ) {
+				Map.Entry<String, JsonNode> param = it.next();
+				params.put(param.getKey(), param.getValue().asText());
+			}
+			params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+			results.put(key.toString(), result);
+		}
+		return results;
+	}
+
+	private static double score(JsonNode result) {
+		return result.path("primaryMetric").path("score").asDouble();
+	}
+
+	private static double error(JsonNode result) {
+		double error = result.path("primaryMetric").path("scoreError").asDouble();
+		return Double.isNaN(error) ? 0 : error;
+	}
+
+	private static String format(JsonNode result) {
+		return String.format("%.3f %s", score(result), result.path("primaryMetric").path("scoreUnit").asText());
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.RecipeappApplication;
+import com.example.recipeapp.model.RecipeSummary;
+import com.example.recipeapp.service.RecipeQueryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * カテゴリ別一覧の1ページ分の取得（recipe_category のインデックスの範囲検索 + recipe との結合）
+ * インデックスの順に読み出すため、レシピ数を増やしても時間がほぼ変わらないことを recipes ごとの結果で確認する。
+ * ページのキャッシュは毎回破棄し、カテゴリ・カーソルを変えながら DB から読み込む。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CategoryPageBenchmark {
+
+	private static final String[] CATEGORIES = {"和食", "洋食", "中華", "麺類", "スープ", "サラダ"};
+
+	private static final int PAGE_SIZE = 20;
+
+	@Param({"5000", "100000"})
+	public int recipes;
+
+	private ConfigurableApplicationContext context;
+
+	private RecipeQueryService recipeQueryService;
+
+	private int invocation;
+
+	@Setup
+	public void setUp() throws Exception {
+		// 画像のディレクトリは一時ディレクトリにする（作業ディレクトリの uploads/ には触れない）
+		Path uploads = Files.createTempDirectory("category-benchmark");
+		context = new SpringApplicationBuilder(RecipeappApplication.class).run(
+				"--spring.datasource.url=jdbc:h2:mem:category-benchmark;DB_CLOSE_DELAY=-1",
+				"--server.port=0",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN",
+				"--app.uploads.dir=" + uploads.resolve("uploads"),
+				"--app.uploads.quarantine-dir=" + uploads.resolve("uploads-quarantine"));
+		recipeQueryService = context.getBean(RecipeQueryService.class);
+		seed(context.getBean(JdbcTemplate.class));
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<RecipeSummary> categoryPage() {
+		recipeQueryService.evictLists();
+		int i = invocation++;
+		return recipeQueryService.findCategorySummaries(
+				CATEGORIES[i % CATEGORIES.length], (i * 7L) % recipes, PAGE_SIZE + 1);
+	}
+
+	// 1レシピに2つのカテゴリを付けて JDBC でまとめて登録する
+	private void seed(JdbcTemplate jdbcTemplate) {
+		List<Object[]> rows = new ArrayList<>();
+		List<Object[]> categories = new ArrayList<>();
+		for (long id = 1; id <= recipes; id++) {
+			rows.add(new Object[]{id, "レシピ" + id, "材料" + id, "作り方" + id, id % 3 == 0});
+			categories.add(new Object[]{id, CATEGORIES[(int) (id % CATEGORIES.length)]});
+			categories.add(new Object[]{id, CATEGORIES[(int) ((id + 1) % CATEGORIES.length)]});
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO recipe (id, title, ingredients, instructions, favorite) VALUES (?, ?, ?, ?, ?)", rows);
+		jdbcTemplate.batchUpdate("INSERT INTO recipe_category (recipe_id, category) VALUES (?, ?)", categories);
+	}
+}
@@ -0,0 +1,66 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.support.RecipeDataGenerator;
+import com.example.recipeapp.service.RecipeQueryService;
+import com.example.recipeapp.service.RecipeStatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/stats・/api/categories のカテゴリ集計
+ * 集計値はレシピ数ではなくカテゴリ数に比例するはずなので、データセットを大きくしても時間が増えないことを確認する。
+ * If-None-Match を付けない（304 にならない）リクエストで、応答の組み立てまでを測る。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class RecipeStatsBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	public int recipes;
+
+	private final RecipeController controller = new RecipeController();
+
+	@Setup
+	public void setUp() {
+		RecipeStatisticsService statisticsService = new RecipeStatisticsService();
+		RecipeDataGenerator.forEachRecipe(recipes,
+				recipe -> statisticsService.recipeAdded(recipe.getCategories(), recipe.isFavorite()));
+		ReflectionTestUtils.setField(controller, "recipeStatisticsService", statisticsService);
+		ReflectionTestUtils.setField(controller, "recipeQueryService", new RecipeQueryService());
+	}
+
+	@Benchmark
+	public ResponseEntity<Map<String, Object>> recipeStats() {
+		return controller.getRecipeStats(request("/api/stats"));
+	}
+
+	@Benchmark
+	public ResponseEntity<Map<String, Object>> allCategories() {
+		return controller.getAllCategories(request("/api/categories"));
+	}
+
+	private static ServletWebRequest request(String uri) {
+		return new ServletWebRequest(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse());
+	}
+}
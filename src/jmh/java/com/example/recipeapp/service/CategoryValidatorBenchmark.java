@@ -0,0 +1,47 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.support.RecipeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * カテゴリのバリデーション（登録・更新・インポートの1件ごとに実行される）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class CategoryValidatorBenchmark {
+
+	// 入力のパターン数（2のべき乗）
+	private static final int INPUTS = 1024;
+
+	private final CategoryValidator validator = new CategoryValidator();
+
+	private List<List<String>> inputs;
+
+	private int next;
+
+	@Setup
+	public void setUp() {
+		inputs = RecipeDataGenerator.categoryInputs(INPUTS);
+	}
+
+	@Benchmark
+	public CategoryValidator.ValidationResult validate() {
+		return validator.validate(inputs.get(next++ & (INPUTS - 1)));
+	}
+}
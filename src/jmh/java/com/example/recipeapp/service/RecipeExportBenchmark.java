@@ -0,0 +1,73 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.support.RecipeDataGenerator;
+import com.example.recipeapp.model.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/export のエンティティ → 出力形式への変換（DB の読み込みは含まない）
+ * 1回の操作でデータセット全件を書き出す。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class RecipeExportBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	public int recipes;
+
+	private final RecipeExportService exportService = new RecipeExportService();
+
+	private List<Recipe> dataset;
+
+	@Setup
+	public void setUp() {
+		ReflectionTestUtils.setField(exportService, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+		dataset = RecipeDataGenerator.recipes(recipes);
+	}
+
+	@Benchmark
+	public void json() throws IOException {
+		OutputStream out = OutputStream.nullOutputStream();
+		for (Recipe recipe : dataset) {
+			exportService.writeJsonRow(out, RecipeExportService.toRow(recipe, sorted(recipe.getCategories())),
+					RecipeExportService.ImageMode.PATH);
+		}
+	}
+
+	@Benchmark
+	public void csv() throws IOException {
+		OutputStream out = OutputStream.nullOutputStream();
+		for (Recipe recipe : dataset) {
+			exportService.writeCsvRow(out, RecipeExportService.toRow(recipe, sorted(recipe.getCategories())),
+					RecipeExportService.ImageMode.PATH);
+		}
+	}
+
+	// エクスポート時と同じく、カテゴリは名前順の TreeSet で渡す
+	private Set<String> sorted(Set<String> categories) {
+		return new TreeSet<>(categories);
+	}
+}
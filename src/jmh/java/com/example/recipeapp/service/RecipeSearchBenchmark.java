@@ -0,0 +1,60 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.support.RecipeDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/search の絞り込み（転置インデックスの検索・積集合・スコア順の並べ替え）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// 100万件のインデックスはおよそ 6GB になる
+@Fork(value = 2, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class RecipeSearchBenchmark {
+
+	private static final int PAGE_SIZE = 20;
+
+	@Param({"1000", "100000", "1000000"})
+	public int recipes;
+
+	private RecipeSearchIndex index;
+
+	@Setup
+	public void setUp() {
+		index = new RecipeSearchIndex();
+		RecipeDataGenerator.forEachRecipe(recipes, index::index);
+	}
+
+	// 日本語のキーワード（バイグラムの完全一致）
+	@Benchmark
+	public RecipeSearchIndex.SearchResult keyword() {
+		return index.search("麻婆豆腐", null, null, null, null, 0, PAGE_SIZE);
+	}
+
+	// 英単語の前方一致
+	@Benchmark
+	public RecipeSearchIndex.SearchResult titlePrefix() {
+		return index.search(null, "qui", null, null, null, 0, PAGE_SIZE);
+	}
+
+	// 複数条件の AND とお気に入りの絞り込み
+	@Benchmark
+	public RecipeSearchIndex.SearchResult ingredientCategoryFavorite() {
+		return index.search(null, null, "豚肉", "和食", true, 0, PAGE_SIZE);
+	}
+}
@@ -0,0 +1,129 @@
+package com.example.recipeapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 操作ごとの応答時間（HdrHistogram）とエラー数の集計
+ */
+class LatencyReport {
+
+	// 記録できる応答時間の上限（これを超えた値は上限として記録する）
+	private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+	private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+	private final Histogram total = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+
+	// 操作ごとの最初の例外（原因の調査用）
+	private final Map<Operation, String> firstFailures = new ConcurrentHashMap<>();
+
+	LatencyReport() {
+		for (Operation operation : Operation.values()) {
+			histograms.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+			errors.put(operation, new LongAdder());
+		}
+	}
+
+	/**
+	 * 1回分の結果を記録する（失敗したリクエストも応答時間に含める）
+	 */
+	void record(Operation operation, long elapsedNanos, boolean success) {
+		long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_LATENCY_MICROS);
+		histograms.get(operation).recordValue(micros);
+		if (operation != Operation.LOGIN) {
+			total.recordValue(micros);
+		}
+		if (!success) {
+			errors.get(operation).increment();
+		}
+	}
+
+	void recordFailure(Operation operation, Exception e) {
+		firstFailures.putIfAbsent(operation, e.toString());
+	}
+
+	long errorCount() {
+		return errors.entrySet().stream()
+				.filter(entry -> entry.getKey() != Operation.LOGIN)
+				.mapToLong(entry -> entry.getValue().sum())
+				.sum();
+	}
+
+	/**
+	 * 計測期間のスループットとパーセンタイル（ミリ秒）を表で出力する
+	 * ログインは計測期間の前に行うため、スループットは表示しない
+	 */
+	void print(PrintStream out, double seconds) {
+		out.printf("%-16s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+				"Operation", "Count", "Errors", "Req/s", "p50", "p90", "p99", "p99.9", "Max");
+		for (Operation operation : Operation.values()) {
+			Histogram histogram = histograms.get(operation);
+			if (histogram.getTotalCount() > 0) {
+				printRow(out, operation.name(), histogram, errors.get(operation).sum(),
+						operation == Operation.LOGIN ? Double.NaN : histogram.getTotalCount() / seconds);
+			}
+		}
+		printRow(out, "TOTAL", total, errorCount(), total.getTotalCount() / seconds);
+		out.println("(応答時間の単位: ms)");
+		firstFailures.forEach((operation, failure) -> out.println("最初の例外 " + operation + ": " + failure));
+	}
+
+	/**
+	 * 結果を JSON で書き出す（リリースごとの比較用）
+	 */
+	void write(Path file, Map<String, Object> settings, Map<String, Object> server, double seconds) throws IOException {
+		Map<String, Object> operations = new LinkedHashMap<>();
+		for (Operation operation : Operation.values()) {
+			Histogram histogram = histograms.get(operation);
+			if (histogram.getTotalCount() > 0) {
+				operations.put(operation.name(), summary(histogram, errors.get(operation).sum(), seconds));
+			}
+		}
+		operations.put("TOTAL", summary(total, errorCount(), seconds));
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("settings", settings);
+		report.put("server", server);
+		report.put("durationSeconds", seconds);
+		report.put("operations", operations);
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+	}
+
+	private void printRow(PrintStream out, String name, Histogram histogram, long errorCount, double throughput) {
+		out.printf("%-16s %9d %7d %9s %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, histogram.getTotalCount(), errorCount,
+				Double.isNaN(throughput) ? "-" : String.format("%.1f", throughput),
+				millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+				histogram.getMaxValue() / 1000.0);
+	}
+
+	private Map<String, Object> summary(Histogram histogram, long errorCount, double seconds) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put("count", histogram.getTotalCount());
+		values.put("errors", errorCount);
+		values.put("throughput", histogram.getTotalCount() / seconds);
+		values.put("meanMillis", histogram.getMean() / 1000.0);
+		values.put("p50Millis", millis(histogram, 50));
+		values.put("p90Millis", millis(histogram, 90));
+		values.put("p99Millis", millis(histogram, 99));
+		values.put("p999Millis", millis(histogram, 99.9));
+		values.put("maxMillis", histogram.getMaxValue() / 1000.0);
+		return values;
+	}
+
+	private double millis(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1000.0;
+	}
+}
@@ -0,0 +1,360 @@
+package com.example.recipeapp.loadtest;
+
+import com.example.recipeapp.RecipeappApplication;
+import com.example.recipeapp.model.User;
+import com.example.recipeapp.repository.UserRepository;
+import com.example.recipeapp.service.ImageStorageService;
+import com.example.recipeapp.service.RecipeImportService;
+import com.example.recipeapp.support.RecipeDataGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * エンドツーエンドの負荷試験
+ * 1. 作業ディレクトリ（カレントディレクトリ）のファイル DB で RecipeappApplication を prod プロファイルで起動する
+ * 2. 生成したレシピ（RecipeDataGenerator）と画像・利用者を登録する
+ * 3. 仮想ユーザーごとにフォームログインし、ホーム・検索・お気に入り・アップロード・エクスポートを混ぜて呼び出す
+ * 4. 操作ごとのスループットと応答時間のパーセンタイルを出力し、report.json に保存する
+ *
+ * 引数は key=value 形式（例: users=100 recipes=100000 duration=120 mix=home:50,search:50 virtual=true）。
+ * 仮想ユーザーは応答を受け取ってから次のリクエストを送る（クローズドモデル）。
+ */
+public final class LoadTest {
+
+	// 作業ディレクトリが負荷試験用であることを示すファイル（それ以外のディレクトリのデータは削除しない）
+	private static final String MARKER_FILE = ".loadtest";
+
+	private static final String PASSWORD = "loadtest-password";
+
+	private static final int LOGIN_ATTEMPTS = 3;
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = Options.parse(args);
+		Path workDir = Paths.get(System.getProperty("user.dir")).toAbsolutePath();
+		prepareWorkDir(workDir);
+
+		System.out.println("負荷試験の設定: " + options.describe());
+		// application.properties より優先させるためコマンドライン引数として渡す
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(RecipeappApplication.class)
+				.profiles("prod")
+				.run(
+						"--server.port=0",
+						"--spring.datasource.url=jdbc:h2:file:./data/recipeapp",
+						"--logging.level.root=WARN",
+						"--spring.threads.virtual.enabled=" + options.virtualThreads);
+		int exitCode;
+		try {
+			String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+			seed(context, options, workDir);
+			if (options.virtualThreads && !Threading.VIRTUAL.isActive(context.getEnvironment())) {
+				System.out.println("この JVM（Java " + Runtime.version().feature() + "）では仮想スレッドを使えないため、プラットフォームスレッドで実行します");
+			}
+			exitCode = run(context, options, baseUrl, workDir);
+		} finally {
+			context.close();
+		}
+		System.exit(exitCode);
+	}
+
+	// 前回の実行結果（DB・画像）を削除する
+	private static void prepareWorkDir(Path workDir) throws IOException {
+		Path marker = workDir.resolve(MARKER_FILE);
+		try (Stream<Path> files = Files.list(workDir)) {
+			if (!Files.exists(marker) && files.findAny().isPresent()) {
+				throw new IllegalStateException("作業ディレクトリ " + workDir + " は負荷試験用ではありません（空のディレクトリで実行してください）");
+			}
+		}
+		FileSystemUtils.deleteRecursively(workDir.resolve("data"));
+		FileSystemUtils.deleteRecursively(workDir.resolve("uploads"));
+		Files.deleteIfExists(workDir.resolve("report.json"));
+		Files.writeString(marker, "");
+	}
+
+	// レシピは /api/import と同じインポート処理で一括登録する
+	private static void seed(ConfigurableApplicationContext context, Options options, Path workDir) throws IOException {
+		long start = System.nanoTime();
+		Random random = new Random(RecipeDataGenerator.SEED);
+
+		// レシピの約半数が共有する画像（内容アドレス方式のため、同じ画像は1ファイルになる）
+		ImageStorageService imageStorageService = context.getBean(ImageStorageService.class);
+		List<String> imagePaths = new ArrayList<>();
+		for (int i = 0; i < options.images; i++) {
+			try (InputStream in = new ByteArrayInputStream(SampleImages.jpeg(random))) {
+				imagePaths.add(imageStorageService.store(in));
+			}
+		}
+
+		Path ndjson = Files.createDirectories(workDir.resolve("data")).resolve("seed.ndjson");
+		ObjectMapper objectMapper = new ObjectMapper();
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(ndjson))) {
+			RecipeDataGenerator.forEachRecipe(options.recipes, recipe -> {
+				Map<String, Object> row = new LinkedHashMap<>();
+				row.put("title", recipe.getTitle());
+				row.put("ingredients", recipe.getIngredients());
+				row.put("instructions", recipe.getInstructions());
+				row.put("categories", recipe.getCategories());
+				row.put("favorite", recipe.isFavorite());
+				row.put("reference", recipe.getReference());
+				row.put("imagePath", recipe.getImagePath() != null && !imagePaths.isEmpty()
+						? imagePaths.get(random.nextInt(imagePaths.size())) : null);
+				try {
+					out.write(objectMapper.writeValueAsBytes(row));
+					out.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+
+		RecipeImportService.ImportJob job;
+		try (InputStream in = Files.newInputStream(ndjson)) {
+			job = context.getBean(RecipeImportService.class).importRecipes(in, RecipeImportService.Format.NDJSON);
+		}
+		Files.delete(ndjson);
+		if (job.getState() != RecipeImportService.ImportJob.State.COMPLETED || job.getRejected() > 0) {
+			throw new IllegalStateException("テストデータの登録に失敗しました: " + job.getErrors());
+		}
+
+		// パスワードのハッシュ化は重いため、全員同じパスワードで1度だけ計算する
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		String encodedPassword = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < options.users; i++) {
+			User user = new User();
+			user.setUsername(username(i));
+			user.setPassword(encodedPassword);
+			user.setRole("ROLE_USER");
+			users.add(user);
+		}
+		userRepository.saveAll(users);
+
+		System.out.printf("テストデータを登録しました: レシピ %d件 / 画像 %d枚 / 利用者 %d人 (%dms)%n",
+				job.getImported(), imagePaths.size(), options.users,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	private static int run(ConfigurableApplicationContext context, Options options, String baseUrl, Path workDir)
+			throws Exception {
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM recipe", Long.class);
+		long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM recipe", Long.class);
+
+		LatencyReport report = new LatencyReport();
+		List<VirtualUser> users = new ArrayList<>();
+		for (int i = 0; i < options.users; i++) {
+			users.add(new VirtualUser(baseUrl, username(i), PASSWORD, minId, maxId, new Random(RecipeDataGenerator.SEED + i)));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(options.users, new CustomizableThreadFactory("loadtest-user-"));
+		ServerThreadSampler threadSampler = null;
+		try {
+			// 全員が同時にログインする（ログインの応答時間は計測期間とは別に記録し、失敗した場合はやり直す）
+			List<Future<Boolean>> logins = new ArrayList<>();
+			for (VirtualUser user : users) {
+				logins.add(executor.submit(() -> {
+					for (int attempt = 0; attempt < LOGIN_ATTEMPTS; attempt++) {
+						if (timed(user, Operation.LOGIN, report)) {
+							return true;
+						}
+					}
+					return false;
+				}));
+			}
+			long failedLogins = 0;
+			for (Future<Boolean> login : logins) {
+				if (!login.get()) {
+					failedLogins++;
+				}
+			}
+			if (failedLogins > 0) {
+				report.print(System.out, options.durationSeconds);
+				throw new IllegalStateException(failedLogins + "人のログインに失敗しました");
+			}
+
+			long start = System.nanoTime();
+			long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+			long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+			System.out.printf("%d人で実行中（ウォームアップ %d秒 + 計測 %d秒）...%n",
+					options.users, options.warmupSeconds, options.durationSeconds);
+
+			threadSampler = ServerThreadSampler.start();
+			List<Future<?>> sessions = new ArrayList<>();
+			for (VirtualUser user : users) {
+				sessions.add(executor.submit(() -> {
+					while (System.nanoTime() < end) {
+						Operation operation = options.nextOperation(user.random());
+						long requestStart = System.nanoTime();
+						boolean success = execute(user, operation, report);
+						long requestEnd = System.nanoTime();
+						// ウォームアップ中と計測期間の終了後に完了したリクエストは記録しない
+						if (requestStart >= measureFrom && requestEnd <= end) {
+							report.record(operation, requestEnd - requestStart, success);
+						}
+						if (options.thinkMillis > 0) {
+							Thread.sleep(options.thinkMillis);
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> session : sessions) {
+				session.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// 同時リクエスト数を増やしてもプラットフォームスレッドが増えないか（仮想スレッドの効果）を確認する
+		Map<String, Object> server = new LinkedHashMap<>();
+		server.put("javaVersion", Runtime.version().feature());
+		server.put("virtualThreads", Threading.VIRTUAL.isActive(context.getEnvironment()));
+		server.put("peakPlatformThreads", threadSampler.stop());
+
+		report.print(System.out, options.durationSeconds);
+		System.out.println("サーバー: " + server);
+		Path reportFile = workDir.resolve("report.json");
+		report.write(reportFile, options.describe(), server, options.durationSeconds);
+		System.out.println("結果を保存しました: " + reportFile);
+		return report.errorCount() > 0 ? 1 : 0;
+	}
+
+	private static boolean timed(VirtualUser user, Operation operation, LatencyReport report) {
+		long start = System.nanoTime();
+		boolean success = execute(user, operation, report);
+		report.record(operation, System.nanoTime() - start, success);
+		return success;
+	}
+
+	// 接続エラー・タイムアウトも失敗として記録し、試験は続ける
+	private static boolean execute(VirtualUser user, Operation operation, LatencyReport report) {
+		try {
+			return user.execute(operation);
+		} catch (IOException e) {
+			report.recordFailure(operation, e);
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static String username(int index) {
+		return String.format("loaduser%04d", index);
+	}
+
+	/**
+	 * 負荷試験の設定
+	 */
+	static class Options {
+		int users = 50;
+		int recipes = 10_000;
+		int images = 20;
+		int warmupSeconds = 10;
+		int durationSeconds = 60;
+		long thinkMillis = 0;
+		boolean virtualThreads = false;
+		final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+		private int totalWeight;
+
+		static Options parse(String[] args) {
+			Options options = new Options();
+			for (Operation operation : Operation.values()) {
+				options.weights.put(operation, operation.getDefaultWeight());
+			}
+			for (String arg : args) {
+				int eq = arg.indexOf('=');
+				if (eq < 0) {
+					throw new IllegalArgumentException("引数は key=value の形式で指定してください: " + arg);
+				}
+				String value = arg.substring(eq + 1);
+				switch (arg.substring(0, eq)) {
+					case "users" -> options.users = Integer.parseInt(value);
+					case "recipes" -> options.recipes = Integer.parseInt(value);
+					case "images" -> options.images = Integer.parseInt(value);
+					case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+					case "duration" -> options.durationSeconds = Integer.parseInt(value);
+					case "think" -> options.thinkMillis = Long.parseLong(value);
+					case "mix" -> options.parseMix(value);
+					case "virtual" -> options.virtualThreads = Boolean.parseBoolean(value);
+					default -> throw new IllegalArgumentException("不明な引数です: " + arg);
+				}
+			}
+			options.weights.put(Operation.LOGIN, 0);
+			options.totalWeight = options.weights.values().stream().mapToInt(Integer::intValue).sum();
+			if (options.users < 1 || options.recipes < 1 || options.durationSeconds < 1 || options.totalWeight < 1) {
+				throw new IllegalArgumentException("users・recipes・duration・mix の重みの合計は1以上にしてください");
+			}
+			return options;
+		}
+
+		// 例: home:50,search:30,upload:20（指定しなかった操作は実行しない）
+		private void parseMix(String value) {
+			weights.replaceAll((operation, weight) -> 0);
+			for (String entry : value.split(",")) {
+				String[] pair = entry.split(":");
+				weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+			}
+		}
+
+		Operation nextOperation(Random random) {
+			int r = random.nextInt(totalWeight);
+			for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+				r -= entry.getValue();
+				if (r < 0) {
+					return entry.getKey();
+				}
+			}
+			throw new IllegalStateException();
+		}
+
+		Map<String, Object> describe() {
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("users", users);
+			values.put("recipes", recipes);
+			values.put("images", images);
+			values.put("warmupSeconds", warmupSeconds);
+			values.put("durationSeconds", durationSeconds);
+			values.put("thinkMillis", thinkMillis);
+			values.put("virtualThreads", virtualThreads);
+			Map<String, Integer> mix = new LinkedHashMap<>();
+			weights.forEach((operation, weight) -> {
+				if (weight > 0) {
+					mix.put(operation.name().toLowerCase(), weight);
+				}
+			});
+			values.put("mix", mix);
+			return values;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.example.recipeapp.loadtest;
+
+/**
+ * 負荷試験で仮想ユーザーが実行する操作と、既定の実行比率（重み）
+ */
+public enum Operation {
+	// フォームログイン（ログイン時のみ。比率には含めない）
+	LOGIN(0),
+	HOME(30),
+	CATEGORY(10),
+	FAVORITES(5),
+	SEARCH(25),
+	STATS(5),
+	TOGGLE_FAVORITE(15),
+	UPLOAD(5),
+	EXPORT(1),
+	// 新しいセッションでのログインのやり直し（ログインの集中が画面の応答時間に与える影響を測る。例: mix=home:70,relogin:30）
+	RELOGIN(0);
+
+	private final int defaultWeight;
+
+	Operation(int defaultWeight) {
+		this.defaultWeight = defaultWeight;
+	}
+
+	public int getDefaultWeight() {
+		return defaultWeight;
+	}
+}
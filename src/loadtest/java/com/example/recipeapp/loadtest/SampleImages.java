@@ -0,0 +1,45 @@
+package com.example.recipeapp.loadtest;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * アップロード用の JPEG 画像を生成する（毎回内容が異なるため、重複排除されずに新規保存される）
+ */
+final class SampleImages {
+
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 600;
+
+	private SampleImages() {
+	}
+
+	static byte[] jpeg(Random random) {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setColor(new Color(random.nextInt(0xFFFFFF)));
+			g.fillRect(0, 0, WIDTH, HEIGHT);
+			for (int i = 0; i < 20; i++) {
+				g.setColor(new Color(random.nextInt(0xFFFFFF)));
+				g.fillOval(random.nextInt(WIDTH), random.nextInt(HEIGHT), 20 + random.nextInt(200), 20 + random.nextInt(200));
+			}
+		} finally {
+			g.dispose();
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			ImageIO.write(image, "jpg", out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.recipeapp.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * アプリケーション側のプラットフォームスレッド数を定期的に数え、最大値を記録する
+ * 負荷試験のクライアント（loadtest- で始まるスレッドと HttpClient のスレッド）は除く。
+ * 仮想スレッドは Thread.getAllStackTraces() に含まれないため、数えるのはプラットフォームスレッドのみ。
+ */
+class ServerThreadSampler implements Runnable {
+
+	private static final long INTERVAL_MILLIS = 100;
+
+	private volatile int peak;
+	private volatile boolean running = true;
+
+	static ServerThreadSampler start() {
+		ServerThreadSampler sampler = new ServerThreadSampler();
+		Thread thread = new Thread(sampler, "loadtest-thread-sampler");
+		thread.setDaemon(true);
+		thread.start();
+		return sampler;
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			int count = (int) Thread.getAllStackTraces().keySet().stream()
+					.map(Thread::getName)
+					.filter(name -> !name.startsWith("loadtest-") && !name.contains("HttpClient"))
+					.count();
+			peak = Math.max(peak, count);
+			try {
+				TimeUnit.MILLISECONDS.sleep(INTERVAL_MILLIS);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	int stop() {
+		running = false;
+		return peak;
+	}
+}
@@ -0,0 +1,201 @@
+package com.example.recipeapp.loadtest;
+
+import com.example.recipeapp.service.CategoryValidator;
+import com.example.recipeapp.support.RecipeDataGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 1人分の利用者（セッション Cookie を持つ HTTP クライアント）
+ * SecurityConfig のフォームログインでログインしてから、画面・API を順に呼び出す。
+ */
+class VirtualUser {
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+	// ログイン画面に埋め込まれた CSRF トークン（Thymeleaf が th:action のフォームに追加する）
+	private static final Pattern CSRF_INPUT = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+	// /recipes/images のレスポンス（{"imagePath":"/uploads/..."}）
+	private static final Pattern IMAGE_PATH = Pattern.compile("\"imagePath\"\\s*:\\s*\"([^\"]+)\"");
+
+	private final String baseUrl;
+	private final String username;
+	private final String password;
+	private final long minRecipeId;
+	private final long maxRecipeId;
+	private final Random random;
+	private final HttpClient client;
+	// RELOGIN 用（画面を操作するセッションとは別に、毎回 Cookie を消してからログインする）
+	private final CookieManager reloginCookies = new CookieManager();
+	private final HttpClient reloginClient;
+
+	VirtualUser(String baseUrl, String username, String password, long minRecipeId, long maxRecipeId, Random random) {
+		this.baseUrl = baseUrl;
+		this.username = username;
+		this.password = password;
+		this.minRecipeId = minRecipeId;
+		this.maxRecipeId = maxRecipeId;
+		this.random = random;
+		this.client = newClient(new CookieManager());
+		this.reloginClient = newClient(reloginCookies);
+	}
+
+	private static HttpClient newClient(CookieManager cookies) {
+		return HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.cookieHandler(cookies)
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+	}
+
+	Random random() {
+		return random;
+	}
+
+	/**
+	 * 操作を1回実行し、期待したレスポンスが返ったかどうかを返す
+	 */
+	boolean execute(Operation operation) throws IOException, InterruptedException {
+		return switch (operation) {
+			case LOGIN -> login(client);
+			case HOME -> get("/home") == 200;
+			case CATEGORY -> get("/recipes/category/" + encode(RecipeDataGenerator.pick(random, RecipeDataGenerator.CATEGORIES))) == 200;
+			case FAVORITES -> get("/recipes/favorites") == 200;
+			case SEARCH -> get("/api/search?" + searchQuery()) == 200;
+			case STATS -> get("/api/stats") == 200;
+			case TOGGLE_FAVORITE -> toggleFavorite();
+			case UPLOAD -> upload();
+			case EXPORT -> get("/api/export?format=ndjson") == 200;
+			case RELOGIN -> relogin();
+		};
+	}
+
+	private boolean login(HttpClient client) throws IOException, InterruptedException {
+		HttpResponse<String> page = client.send(request("/login").GET().build(), HttpResponse.BodyHandlers.ofString());
+		Matcher matcher = CSRF_INPUT.matcher(page.body());
+		if (page.statusCode() != 200 || !matcher.find()) {
+			return false;
+		}
+
+		String form = "username=" + encode(username) + "&password=" + encode(password) + "&_csrf=" + encode(matcher.group(1));
+		HttpResponse<Void> response = client.send(request("/login")
+						.header("Content-Type", "application/x-www-form-urlencoded")
+						.POST(HttpRequest.BodyPublishers.ofString(form))
+						.build(),
+				HttpResponse.BodyHandlers.discarding());
+		return response.statusCode() == 302 && redirectsTo(response, "/home");
+	}
+
+	private boolean relogin() throws IOException, InterruptedException {
+		reloginCookies.getCookieStore().removeAll();
+		return login(reloginClient);
+	}
+
+	// 検索語のみ・カテゴリで絞り込み・お気に入りで絞り込みを混ぜる
+	private String searchQuery() {
+		return switch (random.nextInt(4)) {
+			case 0 -> "q=" + encode(RecipeDataGenerator.pick(random, RecipeDataGenerator.INGREDIENTS))
+					+ "&category=" + encode(RecipeDataGenerator.pick(random, RecipeDataGenerator.CATEGORIES));
+			case 1 -> "title=" + encode(RecipeDataGenerator.pick(random, RecipeDataGenerator.DISHES)) + "&favorite=true";
+			default -> "q=" + encode(RecipeDataGenerator.pick(random, RecipeDataGenerator.DISHES));
+		};
+	}
+
+	private boolean toggleFavorite() throws IOException, InterruptedException {
+		long id = minRecipeId + (long) (random.nextDouble() * (maxRecipeId - minRecipeId + 1));
+		HttpResponse<Void> response = client.send(request("/recipes/" + id + "/toggleFavorite")
+						.POST(HttpRequest.BodyPublishers.noBody())
+						.build(),
+				HttpResponse.BodyHandlers.discarding());
+		return response.statusCode() == 200;
+	}
+
+	// 画像付きでレシピを登録する（成功するとホームへリダイレクトされる）
+	// 画面と同じく、画像は先に /recipes/images へそのまま送り、返ってきた画像パスをフォームで送る
+	private boolean upload() throws IOException, InterruptedException {
+		HttpResponse<String> image = client.send(request("/recipes/images")
+						.header("Content-Type", "image/jpeg")
+						.POST(HttpRequest.BodyPublishers.ofByteArray(SampleImages.jpeg(random)))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+		Matcher imagePath = IMAGE_PATH.matcher(image.body());
+		if (image.statusCode() != 200 || !imagePath.find()) {
+			return false;
+		}
+
+		Multipart body = new Multipart();
+		body.field("title", "負荷試験" + RecipeDataGenerator.pick(random, RecipeDataGenerator.DISHES));
+		body.field("ingredients", RecipeDataGenerator.pick(random, RecipeDataGenerator.INGREDIENTS) + " 200g");
+		body.field("instructions", "材料を切って炒める。");
+		int categories = random.nextInt(CategoryValidator.MAX_CATEGORIES + 1);
+		for (int i = 0; i < categories; i++) {
+			body.field("categories", RecipeDataGenerator.pick(random, RecipeDataGenerator.CATEGORIES));
+		}
+		body.field("imagePath", imagePath.group(1));
+
+		HttpResponse<Void> response = client.send(request("/recipes/new")
+						.header("Content-Type", body.contentType())
+						.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+						.build(),
+				HttpResponse.BodyHandlers.discarding());
+		return response.statusCode() == 302 && redirectsTo(response, "/home");
+	}
+
+	// ログイン画面へのリダイレクト（セッション切れ）やエラーは失敗として扱う
+	private int get(String path) throws IOException, InterruptedException {
+		return client.send(request(path).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+	}
+
+	private boolean redirectsTo(HttpResponse<?> response, String path) {
+		return response.headers().firstValue("Location").map(location -> location.contains(path)).orElse(false);
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * multipart/form-data のリクエストボディ
+	 */
+	private static class Multipart {
+
+		private final String boundary = "----loadtest" + UUID.randomUUID();
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		void field(String name, String value) {
+			write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n");
+		}
+
+		String contentType() {
+			return "multipart/form-data; boundary=" + boundary;
+		}
+
+		byte[] toByteArray() {
+			write("--" + boundary + "--\r\n");
+			return out.toByteArray();
+		}
+
+		private void write(String text) {
+			out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
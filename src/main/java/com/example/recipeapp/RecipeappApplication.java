@@ -2,6 +2,8 @@ package com.example.recipeapp;
 
 import com.example.recipeapp.model.User;
 import com.example.recipeapp.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -11,6 +13,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @SpringBootApplication
 public class RecipeappApplication {
 
+    private static final Logger log = LoggerFactory.getLogger(RecipeappApplication.class);
+
     public static void main(String[] args) {
         // Tomcatのファイルアップロード制限を設定（最優先）
         System.setProperty("org.apache.tomcat.util.http.fileupload.fileCountMax", "10000");
@@ -29,7 +33,7 @@ public class RecipeappApplication {
                 adminUser.setPassword(encoder.encode("password"));
                 adminUser.setRole("ROLE_ADMIN");
                 repo.save(adminUser);
-                System.out.println("初期管理者ユーザー 'admin' を作成しました（パスワード: password）");
+                log.info("初期管理者ユーザー 'admin' を作成しました（パスワード: password）");
             }
 
             // 一般ユーザーも作成する場合
@@ -39,12 +43,12 @@ public class RecipeappApplication {
                 normalUser.setPassword(encoder.encode("password"));
                 normalUser.setRole("ROLE_USER");
                 repo.save(normalUser);
-                System.out.println("初期一般ユーザー 'user' を作成しました（パスワード: password）");
+                log.info("初期一般ユーザー 'user' を作成しました（パスワード: password）");
             }
 
             // Tomcatの設定を確認
             String fileCountMax = System.getProperty("org.apache.tomcat.util.http.fileupload.fileCountMax");
-            System.out.println("Tomcat fileCountMax 設定値: " + fileCountMax);
+            log.info("Tomcat fileCountMax 設定値: {}", fileCountMax);
         };
     }
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package com.example.recipeapp.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+// 定期実行（アップロード画像の整合性チェック）を有効にする
 @Configuration
+@EnableScheduling
 public class AppConfig {
     // passwordEncoder() は削除
 }
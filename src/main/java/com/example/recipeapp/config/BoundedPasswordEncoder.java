@@ -0,0 +1,96 @@
+package com.example.recipeapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * パスワードのハッシュ化・照合を専用のスレッドプールで実行する PasswordEncoder
+ * BCrypt は1回あたり数十ミリ秒 CPU を使うため、ログインが集中しても同時に計算する数をスレッド数までに抑え、
+ * 画面の描画に使う CPU を残す。待ち行列が埋まっている場合・待ち時間が上限を超えた場合は計算せずに断る。
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor executor;
+    private final Duration timeout;
+    private final MeterRegistry meterRegistry;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ThreadPoolTaskExecutor executor, Duration timeout,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeout = timeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute("encode", () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute("matches", () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    // 呼び出し元のスレッドは計算が終わるまで待つ（CPU は使わない）
+    private <T> T execute(String operation, Callable<T> task) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "ok";
+        Future<T> future = null;
+        try {
+            future = executor.submit(task);
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TaskRejectedException e) {
+            result = "rejected";
+            throw new PasswordHashingBusyException("パスワードの照合待ちが上限に達しています");
+        } catch (TimeoutException e) {
+            result = "timeout";
+            future.cancel(true);
+            throw new PasswordHashingBusyException("パスワードの照合待ちが " + timeout.toMillis() + "ms を超えました");
+        } catch (InterruptedException e) {
+            result = "interrupted";
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("パスワードの照合待ちが中断されました");
+        } catch (ExecutionException e) {
+            result = "error";
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            sample.stop(Timer.builder("recipeapp.security.password.hash")
+                    .description("パスワードのハッシュ化・照合にかかった時間（待ち時間を含む）")
+                    .tag("operation", operation)
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * パスワードの計算が混み合っていて受け付けられない場合の例外
+     * ログインでは認証の失敗として扱われる（ログイン画面に混雑中のメッセージを表示する）。
+     */
+    public static class PasswordHashingBusyException extends AuthenticationServiceException {
+        public PasswordHashingBusyException(String message) {
+            super(message);
+        }
+    }
+}
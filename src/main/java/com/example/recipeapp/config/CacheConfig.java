@@ -0,0 +1,84 @@
+package com.example.recipeapp.config;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.service.CustomUserDetailsService;
+import com.example.recipeapp.service.RecipeCardRenderer;
+import com.example.recipeapp.service.RecipeQueryService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * レシピの読み取りキャッシュ（Caffeine）の設定
+ * レシピ本体はおおよそのバイト数、ページ一覧はレシピ件数で上限を決め、
+ * 描画済みのレシピカードは HTML のおおよそのバイト数、ログイン用のユーザー情報は件数で上限を決める。
+ * 超えた分は使用頻度の低いものから破棄する。
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // 文字列以外のフィールドとオブジェクトのおおよそのサイズ
+    private static final int RECIPE_OVERHEAD_BYTES = 200;
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.cache.recipe-max-size:16MB}") DataSize recipeMaxSize,
+            @Value("${app.cache.page-max-recipes:50000}") long pageMaxRecipes,
+            @Value("${app.cache.card-max-size:8MB}") DataSize cardMaxSize,
+            @Value("${app.cache.user-max-entries:10000}") long userMaxEntries,
+            @Value("${app.cache.user-ttl:10m}") Duration userTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // 登録したキャッシュ以外は作らない
+        cacheManager.setCacheNames(List.of());
+
+        cacheManager.registerCustomCache(RecipeQueryService.RECIPE_CACHE, Caffeine.newBuilder()
+                .maximumWeight(recipeMaxSize.toBytes())
+                .<Object, Object>weigher((key, value) -> weigh((Recipe) value))
+                .recordStats()
+                .build());
+
+        cacheManager.registerCustomCache(RecipeQueryService.PAGE_CACHE, Caffeine.newBuilder()
+                .maximumWeight(pageMaxRecipes)
+                .<Object, Object>weigher((key, value) -> Math.max(1, ((List<?>) value).size()))
+                .recordStats()
+                .build());
+
+        cacheManager.registerCustomCache(RecipeCardRenderer.CARD_CACHE, Caffeine.newBuilder()
+                .maximumWeight(cardMaxSize.toBytes())
+                .<Object, Object>weigher((key, value) -> Math.max(1, ((String) value).length() * 2))
+                .recordStats()
+                .build());
+
+        // DB を直接変更した場合に備え、一定時間で読み込み直す
+        cacheManager.registerCustomCache(CustomUserDetailsService.USER_CACHE, Caffeine.newBuilder()
+                .maximumSize(userMaxEntries)
+                .expireAfterWrite(userTtl)
+                .recordStats()
+                .build());
+
+        return cacheManager;
+    }
+
+    // 文字列は UTF-16 で1文字2バイトとして概算
+    private static int weigh(Recipe recipe) {
+        long chars = length(recipe.getTitle()) + length(recipe.getIngredients()) + length(recipe.getInstructions())
+                + length(recipe.getReference()) + length(recipe.getImagePath());
+        for (String category : recipe.getCategories()) {
+            chars += length(category);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, RECIPE_OVERHEAD_BYTES + chars * 2);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
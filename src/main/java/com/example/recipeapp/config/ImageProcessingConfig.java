@@ -0,0 +1,85 @@
+package com.example.recipeapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 画像処理（サイズ違いの画像生成・不要になった画像の削除・uploads/ の整合性チェック）用のスレッドプール設定
+ */
+@Configuration
+public class ImageProcessingConfig {
+
+    /**
+     * 画像処理用のスレッドプール
+     * デコード後の画像はピクセル数に比例してメモリを使うため、スレッド数とキューの長さを制限する。
+     * キューが埋まった場合は呼び出し元のスレッドで処理する（アップロードが多すぎる場合に自然にブレーキがかかる）。
+     * 仮想スレッドが有効な場合はワーカーも仮想スレッドにする（同時に処理する画像数は同じく workers で制限）。
+     */
+    @Bean(name = "imageProcessingExecutor")
+    public ThreadPoolTaskExecutor imageProcessingExecutor(
+            @Value("${app.images.workers:2}") int workers,
+            @Value("${app.images.queue-capacity:100}") int queueCapacity,
+            Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("image-").getVirtualThreadFactory());
+        } else {
+            executor.setThreadNamePrefix("image-");
+        }
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * 不要になった画像ファイルの削除（一括削除の後始末）用のスレッド
+     * ファイルの削除はディスクの I/O が中心のため1スレッドで順に処理し、リクエストのスレッドを待たせない。
+     */
+    @Bean(name = "imageCleanupExecutor")
+    public ThreadPoolTaskExecutor imageCleanupExecutor(
+            @Value("${app.images.cleanup-queue-capacity:100}") int queueCapacity,
+            Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("image-cleanup-").getVirtualThreadFactory());
+        } else {
+            executor.setThreadNamePrefix("image-cleanup-");
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * アップロード画像の整合性チェックで uploads/ のディレクトリ（ab/）を並列に読むためのスレッドプール
+     * 読み込みの回数は整合性チェック側で制限するため、ここではスレッド数だけを指定する。
+     */
+    @Bean(name = "uploadScanExecutor")
+    public ThreadPoolTaskExecutor uploadScanExecutor(
+            @Value("${app.uploads.reconcile.scan-threads:4}") int threads,
+            Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("upload-scan-").getVirtualThreadFactory());
+        } else {
+            executor.setThreadNamePrefix("upload-scan-");
+        }
+        return executor;
+    }
+}
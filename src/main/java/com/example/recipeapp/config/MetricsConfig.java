@@ -0,0 +1,80 @@
+package com.example.recipeapp.config;
+
+import com.example.recipeapp.service.ImageVariantService;
+import com.example.recipeapp.service.UploadReconciliationService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * アプリケーション固有のメトリクス（/actuator/prometheus で公開）
+ * エンドポイント別の応答時間・コネクションプール・キャッシュ・画像処理のスレッドプールは Spring Boot が自動で記録する。
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder imageQueueMetrics(ImageVariantService imageVariantService) {
+        return registry -> Gauge.builder("recipeapp.images.queue.depth", imageVariantService, ImageVariantService::getQueueDepth)
+                .description("サイズ違いの画像の生成待ちの件数")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder uploadReconciliationMetrics(UploadReconciliationService uploadReconciliationService) {
+        return registry -> Gauge.builder("recipeapp.uploads.missing", uploadReconciliationService,
+                        UploadReconciliationService::getLastMissingImages)
+                .description("レシピから参照されているのにファイルがない画像の数（最後の整合性チェックの結果）")
+                .register(registry);
+    }
+
+    /**
+     * コネクションの取得にかかった時間をリクエストごとに数えるため、DataSource をラップする
+     */
+    @Bean
+    public static BeanPostProcessor connectionWaitDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionWaitDataSource)) {
+                    return new ConnectionWaitDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class ConnectionWaitDataSource extends DelegatingDataSource {
+
+        ConnectionWaitDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.getConnection();
+            } finally {
+                RequestMetrics.addConnectionWait(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.getConnection(username, password);
+            } finally {
+                RequestMetrics.addConnectionWait(System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -36,8 +36,9 @@ public class MultipartConfig {
         // リクエスト全体のサイズ制限
         factory.setMaxRequestSize(DataSize.ofMegabytes(20));
 
-        // ファイルがメモリに書き込まれる閾値
-        factory.setFileSizeThreshold(DataSize.ofKilobytes(0));
+        // この大きさまではメモリに保持し、超えたものだけ一時ファイルに書き出す
+        // （テキストの項目まで一時ファイルにしない。画像はフォームから /recipes/images に直接送る）
+        factory.setFileSizeThreshold(DataSize.ofKilobytes(256));
 
         // 一時ディレクトリ
         factory.setLocation(System.getProperty("java.io.tmpdir"));
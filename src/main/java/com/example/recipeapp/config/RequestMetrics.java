@@ -0,0 +1,54 @@
+package com.example.recipeapp.config;
+
+/**
+ * 1リクエストの処理中に発行した SQL の数と、コネクションの取得を待った時間
+ * リクエストを処理するスレッドに紐づけて数え、RequestMetricsFilter がリクエストの終了時に記録する。
+ * リクエストの外（起動時の処理・非同期のエクスポートや画像処理）では数えない。
+ */
+public final class RequestMetrics {
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+
+    private long connectionWaitNanos;
+
+    private RequestMetrics() {
+    }
+
+    static RequestMetrics begin() {
+        RequestMetrics metrics = new RequestMetrics();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * SQL の発行を数える（Hibernate の StatementInspector から呼び出す）
+     */
+    public static String countStatement(String sql) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.statementCount++;
+        }
+        return sql;
+    }
+
+    public static void addConnectionWait(long nanos) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.connectionWaitNanos += nanos;
+        }
+    }
+
+    int getStatementCount() {
+        return statementCount;
+    }
+
+    long getConnectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+}
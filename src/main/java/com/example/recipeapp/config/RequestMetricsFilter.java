@@ -0,0 +1,69 @@
+package com.example.recipeapp.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * リクエストごとの SQL 発行数とコネクション取得の待ち時間を、エンドポイント（URI パターン）別に記録する
+ * 応答時間そのものは Spring Boot が http.server.requests として記録する。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private static final Set<String> STANDARD_METHODS = Arrays.stream(HttpMethod.values())
+            .map(HttpMethod::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestMetrics metrics = RequestMetrics.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestMetrics.end();
+            record(request, metrics);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestMetrics metrics) {
+        // http.server.requests と同じく、実際のパスではなくマッピングのパターンをタグにする（値の種類を増やさない）
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        // 標準外のメソッド名はクライアントが自由に送れるため、まとめて OTHER にする
+        String method = STANDARD_METHODS.contains(request.getMethod()) ? request.getMethod() : "OTHER";
+
+        DistributionSummary.builder("recipeapp.request.db.statements")
+                .description("1リクエストで発行した SQL の数")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(metrics.getStatementCount());
+        Timer.builder("recipeapp.request.db.connection.wait")
+                .description("1リクエストでコネクションの取得を待った時間の合計")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(metrics.getConnectionWaitNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.recipeapp.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hibernate が実行する SQL を指定した割合だけログに出力する
+ * show-sql と違い実行中に割合を変更でき、0 の間は乱数も使わずに SQL をそのまま返す。
+ * 割合は /actuator/sqllog から変更する（SqlLogEndpoint）。
+ */
+public class SampledSqlStatementInspector implements StatementInspector {
+
+    private static final Logger log = LoggerFactory.getLogger("com.example.recipeapp.sql");
+
+    // 0.0（出力しない）〜 1.0（すべて出力）
+    private volatile double sampleRate;
+
+    private final LongAdder inspected = new LongAdder();
+
+    private final LongAdder logged = new LongAdder();
+
+    public SampledSqlStatementInspector(double sampleRate) {
+        setSampleRate(sampleRate);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        double rate = sampleRate;
+        if (rate <= 0) {
+            return sql;
+        }
+        inspected.increment();
+        if ((rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate) && log.isInfoEnabled()) {
+            logged.increment();
+            log.info("SQL: {}", sql);
+        }
+        return sql;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate は 0.0〜1.0 で指定してください: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    // 有効にしてから確認した SQL の数（無効の間は数えない）
+    public long getInspectedCount() {
+        return inspected.sum();
+    }
+
+    public long getLoggedCount() {
+        return logged.sum();
+    }
+}
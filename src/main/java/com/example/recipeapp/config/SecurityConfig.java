@@ -8,8 +8,12 @@ import org.springframework.security.config.annotation.authentication.builders.Au
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
+import org.springframework.security.web.authentication.ExceptionMappingAuthenticationFailureHandler;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 
+import java.util.Map;
+
 @Configuration
 public class SecurityConfig {
 
@@ -24,12 +28,19 @@ public class SecurityConfig {
         http
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/login", "/register", "/h2-console/**", "/assets/**", "/images/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Prometheus からの収集はサーバー上（ローカル）からのみ受け付ける
+                        .requestMatchers("/actuator/prometheus")
+                        .access(new WebExpressionAuthorizationManager("hasIpAddress('127.0.0.1') or hasIpAddress('::1')"))
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        // 一括削除・全件リセット・画像の整理・一括取り込みなどの管理用 API は管理者のみ
+                        .requestMatchers("/api/admin/**", "/api/import/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
                         .loginPage("/login")
                         .defaultSuccessUrl("/home", true)
-                        .failureUrl("/login?error=true")
+                        .failureHandler(loginFailureHandler())
                         .permitAll()
                 )
                 .logout(logout -> logout
@@ -48,6 +59,15 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // パスワードの照合が混み合っている場合は、認証の失敗とは別のメッセージを表示する
+    private ExceptionMappingAuthenticationFailureHandler loginFailureHandler() {
+        ExceptionMappingAuthenticationFailureHandler handler = new ExceptionMappingAuthenticationFailureHandler();
+        handler.setDefaultFailureUrl("/login?error=true");
+        handler.setExceptionMappings(Map.of(
+                BoundedPasswordEncoder.PasswordHashingBusyException.class.getName(), "/login?busy=true"));
+        return handler;
+    }
+
     @Autowired
     public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
         auth.userDetailsService(customUserDetailsService).passwordEncoder(passwordEncoder);
@@ -0,0 +1,44 @@
+package com.example.recipeapp.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL のサンプリングログを再起動せずに切り替えるエンドポイント
+ * GET  /actuator/sqllog                          現在の設定と件数
+ * POST /actuator/sqllog {"sampleRate": 0.01}     1% の SQL を出力（0 で停止）
+ */
+@Component
+@Endpoint(id = "sqllog")
+public class SqlLogEndpoint {
+
+    @Autowired
+    private SampledSqlStatementInspector inspector;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", inspector.getSampleRate() > 0);
+        status.put("sampleRate", inspector.getSampleRate());
+        status.put("inspectedCount", inspector.getInspectedCount());
+        status.put("loggedCount", inspector.getLoggedCount());
+        return status;
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(double sampleRate) {
+        try {
+            inspector.setSampleRate(sampleRate);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), "sampleRate は 0.0〜1.0 で指定してください");
+        }
+        return status();
+    }
+}
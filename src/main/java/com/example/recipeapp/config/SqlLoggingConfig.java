@@ -0,0 +1,29 @@
+package com.example.recipeapp.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SQL のサンプリングログの設定
+ * 初期値は app.sql-log.sample-rate（既定は 0 = 出力しない）
+ */
+@Configuration
+public class SqlLoggingConfig {
+
+    @Bean
+    public SampledSqlStatementInspector sampledSqlStatementInspector(
+            @Value("${app.sql-log.sample-rate:0}") double sampleRate) {
+        return new SampledSqlStatementInspector(sampleRate);
+    }
+
+    // SQL をリクエストごとの発行数（RequestMetrics）に数えてから、サンプリングログに渡す
+    @Bean
+    public HibernatePropertiesCustomizer sqlLogHibernatePropertiesCustomizer(SampledSqlStatementInspector inspector) {
+        StatementInspector countingInspector = sql -> inspector.inspect(RequestMetrics.countStatement(sql));
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, countingInspector);
+    }
+}
@@ -1,20 +1,124 @@
 package com.example.recipeapp.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    // 内容のハッシュ値を含むファイル名（uploads/ab/cd/<SHA-256>.jpg、assets/css/style-<MD5>.css）
+    private static final String UPLOAD_HASHED_PATTERN = "/uploads/*/*/{file:[0-9a-f]{64}[\\w.]*}";
+    private static final String ASSET_VERSIONED_PATTERN = "/assets/*/{file:[\\w.-]+-[0-9a-f]{32}\\.\\w+}";
+
+    // 静的リソースの内容ハッシュ（ETag 用）
+    private final Map<String, String> assetHashes = new ConcurrentHashMap<>();
+
+    // 画像の保存先（ImageStorageService と同じ設定）
+    @Value("${app.uploads.dir:uploads}")
+    private String uploadDir;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path uploadDir = Paths.get("uploads");
-        String uploadPath = uploadDir.toFile().getAbsolutePath();
+        String uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize().toString();
+
+        // 内容アドレス方式の画像: ログインが必要なため private
+        registry.addResourceHandler(UPLOAD_HASHED_PATTERN)
+                .addResourceLocations("file:" + uploadPath + "/")
+                .setCacheControl(immutable().cachePrivate())
+                .setEtagGenerator(this::uploadEtag);
 
+        // 旧形式の画像: 毎回 Last-Modified で再検証
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadPath + "/");
+                .addResourceLocations("file:" + uploadPath + "/")
+                .setCacheControl(CacheControl.noCache().cachePrivate());
+
+        // CSS・JS: テンプレートからはバージョン付きのURL（style-<MD5>.css）で参照する
+        registerAssets(registry.addResourceHandler(ASSET_VERSIONED_PATTERN), immutable().cachePublic());
+        registerAssets(registry.addResourceHandler("/assets/**"), CacheControl.noCache());
+    }
+
+    private void registerAssets(ResourceHandlerRegistration registration, CacheControl cacheControl) {
+        registration.addResourceLocations("classpath:/static/assets/")
+                .setCacheControl(cacheControl)
+                .setEtagGenerator(this::assetEtag)
+                .resourceChain(true)
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    // ファイル名が内容で決まるため、1年間キャッシュして再検証もさせない
+    private CacheControl immutable() {
+        return CacheControl.maxAge(365, TimeUnit.DAYS).immutable();
+    }
+
+    /**
+     * テンプレートの @{/assets/...} をバージョン付きのURLに書き換える
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    /**
+     * 静的リソースの送信に sendfile を使う
+     */
+    @Bean
+    public static BeanPostProcessor sendfileResourceHandlerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleUrlHandlerMapping mapping && "resourceHandlerMapping".equals(beanName)) {
+                    SendfileResourceHttpMessageConverter converter = new SendfileResourceHttpMessageConverter();
+                    for (Object handler : mapping.getHandlerMap().values()) {
+                        if (handler instanceof ResourceHttpRequestHandler resourceHandler) {
+                            resourceHandler.setResourceHttpMessageConverter(converter);
+                        }
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    // ファイル名（<SHA-256>.jpg・<SHA-256>.card.jpg）の拡張子を除いた部分がそのまま強い ETag になる
+    private String uploadEtag(Resource resource) {
+        String fileName = resource.getFilename();
+        int dot = fileName != null ? fileName.lastIndexOf('.') : -1;
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    // バージョン付きURLと同じ MD5 を ETag にする（リソースごとに1度だけ計算）
+    private String assetEtag(Resource resource) {
+        try {
+            String key = resource.getURL() + "@" + resource.lastModified();
+            return assetHashes.computeIfAbsent(key, k -> {
+                try (InputStream in = resource.getInputStream()) {
+                    return DigestUtils.md5DigestAsHex(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            return null;
+        }
     }
 }
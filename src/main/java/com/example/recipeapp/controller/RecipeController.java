@@ -1,28 +1,57 @@
 package com.example.recipeapp.controller;
 
 import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.model.RecipeField;
+import com.example.recipeapp.model.RecipeSummary;
 import com.example.recipeapp.repository.RecipeRepository;
+import com.example.recipeapp.service.BackgroundJob;
+import com.example.recipeapp.service.CategoryValidator;
+import com.example.recipeapp.service.ImageCleanupService;
+import com.example.recipeapp.service.ImageStorageService;
+import com.example.recipeapp.service.ImageVariantService;
+import com.example.recipeapp.service.RecipeDeletionService;
+import com.example.recipeapp.service.RecipeExportService;
+import com.example.recipeapp.service.RecipeImportService;
+import com.example.recipeapp.service.RecipeQueryService;
+import com.example.recipeapp.service.RecipeSearchIndex;
+import com.example.recipeapp.service.RecipeStatisticsService;
+import com.example.recipeapp.service.UploadReconciliationService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.util.WebUtils;
 
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
@@ -30,66 +59,146 @@ import java.util.ArrayList;
 @Controller
 public class RecipeController {
 
-    private static final int MAX_CATEGORIES = 3;
+    private static final Logger log = LoggerFactory.getLogger(RecipeController.class);
+
+    // 一覧の1ページあたりの件数（デフォルト / 上限）
+    private static final int DEFAULT_PAGE_SIZE = 24;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // 次ページのカーソルを返すレスポンスヘッダー（「もっと見る」用）
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // CookieCsrfTokenRepository が CSRF トークンを保存する Cookie
+    private static final String CSRF_COOKIE = "XSRF-TOKEN";
+
+    private static final String CONCURRENT_UPDATE_MESSAGE =
+            "このレシピは他の画面で更新されています。最新の内容を確認してからもう一度保存してください。";
 
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private RecipeStatisticsService recipeStatisticsService;
+
+    @Autowired
+    private RecipeExportService recipeExportService;
+
+    @Autowired
+    private RecipeImportService recipeImportService;
+
+    @Autowired
+    private CategoryValidator categoryValidator;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private RecipeQueryService recipeQueryService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private RecipeDeletionService recipeDeletionService;
+
+    @Autowired
+    private ImageCleanupService imageCleanupService;
+
+    @Autowired
+    private UploadReconciliationService uploadReconciliationService;
+
     @GetMapping("/home")
-    public String showHome(Model model) {
-        model.addAttribute("recipes", recipeRepository.findAll());
+    public String showHome(@RequestParam(required = false) Long after,
+                           @RequestParam(required = false) Integer size,
+                           @RequestParam(defaultValue = "false") boolean partial,
+                           Model model,
+                           HttpServletResponse response,
+                           ServletWebRequest webRequest) {
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        int pageSize = resolvePageSize(size);
+        List<RecipeSummary> recipes = recipeQueryService.findSummaries(resolveCursor(after), pageSize + 1);
+
+        addRecipePage(model, response, recipes, pageSize, "/home");
+        if (partial) {
+            return "home :: cardItems";
+        }
+
+        model.addAttribute("totalCount", recipeStatisticsService.getTotalRecipes());
         model.addAttribute("favoritesPage", false);
         return "home";
     }
 
-    // レシピ作成画面を表示
-    @GetMapping("/recipes/new")
-    public String showRecipeForm(Model model) {
-        model.addAttribute("recipe", new Recipe());
-        return "recipe_form";
-    }
+    // 一覧画面の ETag を設定し、ブラウザのキャッシュが最新なら true（304 を返し、DB の読み取りと描画を省く）
+    // 画面はレシピのデータ・画像の生成状況・URL・ログインユーザー・CSRF トークンだけで決まるため、これらから ETag を作る
+    // データのバージョンは一覧を読み取る前に取得する（読み取り中に更新されても、古い内容に新しい ETag が付かないようにする）
+    private boolean isNotModified(ServletWebRequest webRequest) {
+        HttpServletRequest request = webRequest.getRequest();
+        // フラッシュメッセージは1回だけ表示するため、その画面はキャッシュさせない
+        if (RequestContextUtils.getInputFlashMap(request) != null) {
+            return false;
+        }
 
-    // カテゴリ数をバリデーションするヘルパーメソッド（改善版）
-    private ValidationResult validateCategories(List<String> categories) {
-        ValidationResult result = new ValidationResult();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Cookie csrfCookie = WebUtils.getCookie(request, CSRF_COOKIE);
+        String viewer = request.getRequestURI() + "?" + request.getQueryString()
+                + "|" + (authentication != null ? authentication.getName() + authentication.getAuthorities() : "")
+                + "|" + (csrfCookie != null ? csrfCookie.getValue() : "");
+        String etag = "W/\"" + recipeQueryService.getDataVersion() + "-" + imageVariantService.getGeneration()
+                + "-" + DigestUtils.md5DigestAsHex(viewer.getBytes(StandardCharsets.UTF_8)) + "\"";
+
+        // 保存はさせるが、表示のたびに ETag で確認させる（ユーザーごとの画面のため共有キャッシュには置かない）
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return webRequest.checkNotModified(etag);
+    }
 
-        if (categories == null || categories.isEmpty()) {
-            result.categories = new HashSet<>();
-            result.isValid = true;
-            return result;
-        }
+    // JSON の API の ETag を設定し、クライアントのキャッシュが最新なら true（304 を返し、集計・検索を省く）
+    // 応答はレシピのデータだけで決まり、ユーザーによって変わらないため、データのバージョンだけから ETag を作る
+    private boolean isApiNotModified(ServletWebRequest webRequest) {
+        String etag = "W/\"" + recipeQueryService.getDataVersion() + "\"";
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return webRequest.checkNotModified(etag);
+    }
 
-        // nullと空文字列を除外してから重複を除去
-        Set<String> uniqueCategories = new HashSet<>();
-        for (String cat : categories) {
-            if (cat != null && !cat.trim().isEmpty()) {
-                uniqueCategories.add(cat.trim());
-            }
+    // ページサイズを 1〜MAX_PAGE_SIZE の範囲に丸める
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
         }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
 
-        System.out.println("バリデーション - 受信カテゴリ（重複含む）: " + categories);
-        System.out.println("バリデーション - ユニークカテゴリ数: " + uniqueCategories.size());
-        System.out.println("バリデーション - カテゴリ内容: " + uniqueCategories);
+    // カーソル未指定時は先頭から（id は 1 以上）
+    private long resolveCursor(Long after) {
+        return after != null && after > 0 ? after : 0L;
+    }
 
-        // カテゴリ数の制限チェック
-        if (uniqueCategories.size() > MAX_CATEGORIES) {
-            result.categories = uniqueCategories;
-            result.isValid = false;
-            result.errorMessage = "カテゴリは" + MAX_CATEGORIES + "つまでしか選択できません。現在" + uniqueCategories.size() + "つ選択されています。";
-            System.out.println("カテゴリ制限エラー: " + uniqueCategories.size() + " > " + MAX_CATEGORIES);
-            return result;
+    // pageSize + 1 件取得した結果（カテゴリ設定済み）から1ページ分を切り出し、次ページのカーソルを設定するヘルパーメソッド
+    private void addRecipePage(Model model, HttpServletResponse response,
+                               List<RecipeSummary> fetched, int pageSize, String pageUrl) {
+        List<RecipeSummary> recipes = fetched;
+        Long nextCursor = null;
+        if (fetched.size() > pageSize) {
+            recipes = fetched.subList(0, pageSize);
+            nextCursor = recipes.get(recipes.size() - 1).getId();
+            response.setHeader(NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
         }
 
-        result.categories = uniqueCategories;
-        result.isValid = true;
-        return result;
+        model.addAttribute("recipes", recipes);
+        model.addAttribute("nextCursor", nextCursor);
+        model.addAttribute("pageSize", pageSize);
+        model.addAttribute("pageUrl", pageUrl);
     }
 
-    // バリデーション結果を格納するクラス
-    private static class ValidationResult {
-        Set<String> categories;
-        boolean isValid;
-        String errorMessage;
+    // レシピ作成画面を表示
+    @GetMapping("/recipes/new")
+    public String showRecipeForm(Model model) {
+        model.addAttribute("recipe", new Recipe());
+        return "recipe_form";
     }
 
     // レシピを新規登録（改善版）
@@ -101,9 +210,10 @@ public class RecipeController {
                                @RequestParam(required = false) String reference,
                                @RequestParam(value = "categories", required = false) List<String> categories,
                                @RequestParam(name = "image", required = false) MultipartFile imageFile,
+                               @RequestParam(name = "imagePath", required = false) String uploadedImagePath,
                                RedirectAttributes redirectAttributes) throws IOException {
 
-        System.out.println("新規登録 - 受信したカテゴリ（生データ）: " + categories);
+        log.debug("新規登録 - 受信したカテゴリ（生データ）: {}", categories);
 
         // 入力値の基本バリデーション
         if (title == null || title.trim().isEmpty()) {
@@ -118,10 +228,10 @@ public class RecipeController {
             processedCategories = new ArrayList<>(new HashSet<>(categories));
         }
 
-        ValidationResult validationResult = validateCategories(processedCategories);
-        if (!validationResult.isValid) {
-            redirectAttributes.addFlashAttribute("errorMessage", validationResult.errorMessage);
-            redirectAttributes.addFlashAttribute("recipe", createRecipeFromParams(title, ingredients, instructions, favorite, reference, validationResult.categories));
+        CategoryValidator.ValidationResult validationResult = categoryValidator.validate(processedCategories);
+        if (!validationResult.isValid()) {
+            redirectAttributes.addFlashAttribute("errorMessage", validationResult.getErrorMessage());
+            redirectAttributes.addFlashAttribute("recipe", createRecipeFromParams(title, ingredients, instructions, favorite, reference, validationResult.getCategories()));
             return "redirect:/recipes/new";
         }
 
@@ -129,31 +239,34 @@ public class RecipeController {
         recipe.setTitle(title.trim());
         recipe.setIngredients(ingredients != null ? ingredients : "");
         recipe.setInstructions(instructions != null ? instructions : "");
-        recipe.setCategories(validationResult.categories);
+        recipe.setCategories(validationResult.getCategories());
         recipe.setFavorite(favorite);
         recipe.setReference(reference);
 
-        System.out.println("新規登録 - 設定されたカテゴリ: " + validationResult.categories);
+        log.debug("新規登録 - 設定されたカテゴリ: {}", validationResult.getCategories());
 
         // 画像アップロード処理
-        if (imageFile != null && !imageFile.isEmpty()) {
-            String fileName = System.currentTimeMillis() + "_" + imageFile.getOriginalFilename();
-            Path uploadPath = Paths.get(System.getProperty("user.dir"), "uploads");
-            Files.createDirectories(uploadPath);
-            Path filePath = uploadPath.resolve(fileName);
-            imageFile.transferTo(filePath.toFile());
-
-            recipe.setImagePath("/uploads/" + fileName);
+        try {
+            recipe.setImagePath(storeImage(imageFile, uploadedImagePath));
+        } catch (ImageStorageService.UnsupportedImageException | ImageStorageService.ImageTooLargeException
+                 | IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            redirectAttributes.addFlashAttribute("recipe", createRecipeFromParams(title, ingredients, instructions, favorite, reference, validationResult.getCategories()));
+            return "redirect:/recipes/new";
         }
 
         try {
-            Recipe savedRecipe = recipeRepository.save(recipe);
-            System.out.println("保存されたレシピID: " + savedRecipe.getId());
-            System.out.println("保存されたカテゴリ: " + savedRecipe.getCategories());
+            Recipe savedRecipe = recipeStatisticsService.update(() -> {
+                Recipe saved = recipeRepository.save(recipe);
+                recipeStatisticsService.recipeAdded(saved.getCategories(), saved.isFavorite());
+                return saved;
+            });
+            recipeSearchIndex.index(savedRecipe);
+            recipeQueryService.evictLists();
+            log.debug("レシピを登録しました - ID: {}, カテゴリ: {}", savedRecipe.getId(), savedRecipe.getCategories());
             redirectAttributes.addFlashAttribute("successMessage", "レシピが正常に登録されました。");
         } catch (Exception e) {
-            System.err.println("レシピ保存エラー: " + e.getMessage());
-            e.printStackTrace();
+            log.error("レシピ保存エラー", e);
             redirectAttributes.addFlashAttribute("errorMessage", "レシピの保存に失敗しました。");
             return "redirect:/recipes/new";
         }
@@ -161,11 +274,55 @@ public class RecipeController {
         return "redirect:/home?loading=true";
     }
 
+    /**
+     * 画像のアップロード（リクエストボディに画像のバイト列をそのまま送る）
+     * マルチパートの一時ファイルを経由せず、読み込みながらハッシュ値の計算・形式の確認を行い uploads/ に1回だけ書き込む。
+     * 返した画像パスを、レシピの登録・更新時に imagePath として送る。
+     */
+    @PostMapping("/recipes/images")
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> uploadImage(
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            InputStream body) {
+        // サイズが分かっている場合は読み込む前に断る
+        if (contentLength != null && contentLength > imageStorageService.getMaxFileSize().toBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        try {
+            return ResponseEntity.ok(Map.of("imagePath", imageStorageService.store(body)));
+        } catch (ImageStorageService.UnsupportedImageException e) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).body(Map.of("error", e.getMessage()));
+        } catch (ImageStorageService.ImageTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            log.error("画像アップロードエラー", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // フォームの画像（マルチパート）か、先にアップロード済みの画像パスのいずれかを保存先のパスにする
+    // どちらもない場合は null
+    private String storeImage(MultipartFile imageFile, String uploadedImagePath) throws IOException {
+        if (imageFile != null && !imageFile.isEmpty()) {
+            return imageStorageService.store(imageFile);
+        }
+        if (uploadedImagePath == null || uploadedImagePath.isBlank()) {
+            return null;
+        }
+        String imagePath = imageStorageService.findStoredImage(uploadedImagePath);
+        if (imagePath == null) {
+            throw new IllegalArgumentException("アップロードした画像が見つかりません。もう一度選択してください。");
+        }
+        return imagePath;
+    }
+
     // 編集画面を表示
     @GetMapping("/recipes/edit/{id}")
     public String showEditForm(@PathVariable Long id, Model model) {
-        Recipe recipe = recipeRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid recipe ID: " + id));
+        Recipe recipe = recipeQueryService.findRecipe(id);
+        if (recipe == null) {
+            throw new IllegalArgumentException("Invalid recipe ID: " + id);
+        }
         model.addAttribute("recipe", recipe);
         return "recipe_form";
     }
@@ -180,14 +337,13 @@ public class RecipeController {
                                @RequestParam(required = false) String reference,
                                @RequestParam(value = "categories", required = false) List<String> categories,
                                @RequestParam(name = "image", required = false) MultipartFile image,
+                               @RequestParam(name = "imagePath", required = false) String uploadedImagePath,
                                @RequestParam(name = "deleteCurrentImage", defaultValue = "false") boolean deleteCurrentImage,
+                               @RequestParam(required = false) Long version,
                                RedirectAttributes redirectAttributes
     ) {
 
-        System.out.println("===== レシピ更新処理開始 =====");
-        System.out.println("更新対象ID: " + id);
-        System.out.println("タイトル: " + title);
-        System.out.println("受信したカテゴリ（生データ）: " + categories);
+        log.debug("レシピ更新開始 - ID: {}, タイトル: {}, 受信したカテゴリ（生データ）: {}", id, title, categories);
 
         try {
             // 入力値の基本バリデーション
@@ -203,15 +359,25 @@ public class RecipeController {
                 processedCategories = new ArrayList<>(new HashSet<>(categories));
             }
 
-            ValidationResult validationResult = validateCategories(processedCategories);
-            if (!validationResult.isValid) {
-                redirectAttributes.addFlashAttribute("errorMessage", validationResult.errorMessage);
+            CategoryValidator.ValidationResult validationResult = categoryValidator.validate(processedCategories);
+            if (!validationResult.isValid()) {
+                redirectAttributes.addFlashAttribute("errorMessage", validationResult.getErrorMessage());
                 return "redirect:/recipes/edit/" + id;
             }
 
             Recipe existingRecipe = recipeRepository.findById(id)
                     .orElseThrow(() -> new IllegalArgumentException("Invalid recipe ID: " + id));
 
+            // 編集画面を開いた後に別の画面・お気に入りの切り替えなどで更新されていれば上書きしない
+            if (version != null && !version.equals(existingRecipe.getVersion())) {
+                redirectAttributes.addFlashAttribute("errorMessage", CONCURRENT_UPDATE_MESSAGE);
+                return "redirect:/recipes/edit/" + id;
+            }
+
+            // 統計の差分更新用に変更前の状態を保持
+            Set<String> previousCategories = new HashSet<>(existingRecipe.getCategories());
+            boolean previousFavorite = existingRecipe.isFavorite();
+
             existingRecipe.setTitle(title.trim());
             existingRecipe.setIngredients(ingredients != null ? ingredients : "");
             existingRecipe.setInstructions(instructions != null ? instructions : "");
@@ -220,49 +386,47 @@ public class RecipeController {
 
             // カテゴリをクリアしてから新しいカテゴリを設定
             existingRecipe.clearCategories();
-            existingRecipe.setCategories(validationResult.categories);
-
-            System.out.println("更新 - 設定されたカテゴリ: " + validationResult.categories);
-
-            // 画像処理
-            if (image != null && !image.isEmpty()) {
-                Path uploadPath = Paths.get(System.getProperty("user.dir"), "uploads");
-                Files.createDirectories(uploadPath);
+            existingRecipe.setCategories(validationResult.getCategories());
 
-                // 古い画像があれば削除
-                if (existingRecipe.getImagePath() != null) {
-                    Path oldPath = uploadPath.resolve(Paths.get(existingRecipe.getImagePath()).getFileName());
-                    Files.deleteIfExists(oldPath);
-                }
+            log.debug("更新 - 設定されたカテゴリ: {}", validationResult.getCategories());
 
+            // 画像処理（古い画像は保存後、どのレシピからも参照されていなければ削除）
+            String previousImagePath = existingRecipe.getImagePath();
+            String newImagePath = storeImage(image, uploadedImagePath);
+            if (newImagePath != null) {
                 // 新しい画像を保存
-                String fileName = System.currentTimeMillis() + "_" + image.getOriginalFilename();
-                Path filePath = uploadPath.resolve(fileName);
-                image.transferTo(filePath.toFile());
-
-                existingRecipe.setImagePath("/uploads/" + fileName);
+                existingRecipe.setImagePath(newImagePath);
             } else if (deleteCurrentImage) {
                 // 画像削除フラグが立っている場合
-                if (existingRecipe.getImagePath() != null) {
-                    Path uploadPath = Paths.get(System.getProperty("user.dir"), "uploads");
-                    Path oldPath = uploadPath.resolve(Paths.get(existingRecipe.getImagePath()).getFileName());
-                    Files.deleteIfExists(oldPath);
-                }
                 existingRecipe.setImagePath(null);
             }
 
-            Recipe savedRecipe = recipeRepository.save(existingRecipe);
-            System.out.println("更新されたレシピID: " + savedRecipe.getId());
-            System.out.println("更新されたカテゴリ: " + savedRecipe.getCategories());
-            System.out.println("===== レシピ更新処理完了 =====");
+            Recipe savedRecipe = recipeStatisticsService.update(() -> {
+                Recipe saved = recipeRepository.save(existingRecipe);
+                recipeStatisticsService.recipeUpdated(previousCategories, previousFavorite,
+                        saved.getCategories(), saved.isFavorite());
+                return saved;
+            });
+            if (previousImagePath != null && !previousImagePath.equals(savedRecipe.getImagePath())) {
+                imageStorageService.release(previousImagePath);
+            }
+            recipeSearchIndex.index(savedRecipe);
+            recipeQueryService.evictRecipe(savedRecipe.getId());
+            log.debug("レシピを更新しました - ID: {}, カテゴリ: {}", savedRecipe.getId(), savedRecipe.getCategories());
 
             redirectAttributes.addFlashAttribute("successMessage", "レシピが正常に更新されました。");
             return "redirect:/home?loading=true";
 
+        } catch (ImageStorageService.UnsupportedImageException | ImageStorageService.ImageTooLargeException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/recipes/edit/" + id;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // 読み込みから保存までの間に別の更新がコミットされた
+            log.info("レシピ更新の競合 - ID: {}", id);
+            redirectAttributes.addFlashAttribute("errorMessage", CONCURRENT_UPDATE_MESSAGE);
+            return "redirect:/recipes/edit/" + id;
         } catch (Exception e) {
-            System.err.println("===== レシピ更新エラー =====");
-            System.err.println("エラーメッセージ: " + e.getMessage());
-            e.printStackTrace();
+            log.error("レシピ更新エラー - ID: {}", id, e);
             redirectAttributes.addFlashAttribute("errorMessage", "レシピの更新に失敗しました: " + e.getMessage());
             return "redirect:/recipes/edit/" + id;
         }
@@ -274,17 +438,9 @@ public class RecipeController {
                                @RequestParam(required = false) Boolean from,
                                @RequestParam(required = false) String category) {
         try {
-            // 画像ファイルも削除
-            Recipe recipe = recipeRepository.findById(id).orElse(null);
-            if (recipe != null && recipe.getImagePath() != null) {
-                Path uploadPath = Paths.get(System.getProperty("user.dir"), "uploads");
-                Path imagePath = uploadPath.resolve(Paths.get(recipe.getImagePath()).getFileName());
-                Files.deleteIfExists(imagePath);
-            }
-
-            recipeRepository.deleteById(id);
+            recipeDeletionService.deleteById(id);
         } catch (Exception e) {
-            System.err.println("レシピ削除エラー: " + e.getMessage());
+            log.error("レシピ削除エラー - ID: {}", id, e);
         }
 
         if (Boolean.TRUE.equals(from)) {
@@ -308,80 +464,133 @@ public class RecipeController {
     @ResponseBody
     public ResponseEntity<Void> deleteRecipeAjax(@PathVariable Long id) {
         try {
-            if (!recipeRepository.existsById(id)) {
+            if (!recipeDeletionService.deleteById(id)) {
                 return ResponseEntity.notFound().build();
             }
-
-            // 画像ファイルも削除
-            Recipe recipe = recipeRepository.findById(id).orElse(null);
-            if (recipe != null && recipe.getImagePath() != null) {
-                Path uploadPath = Paths.get(System.getProperty("user.dir"), "uploads");
-                Path imagePath = uploadPath.resolve(Paths.get(recipe.getImagePath()).getFileName());
-                Files.deleteIfExists(imagePath);
-            }
-
-            recipeRepository.deleteById(id);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
-            System.err.println("AJAX削除エラー: " + e.getMessage());
+            log.error("AJAX削除エラー - ID: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     // お気に入りのみ表示
     @GetMapping("/recipes/favorites")
-    public String showFavoriteRecipes(Model model) {
-        model.addAttribute("recipes", recipeRepository.findByFavoriteTrue());
+    public String showFavoriteRecipes(@RequestParam(required = false) Long after,
+                                      @RequestParam(required = false) Integer size,
+                                      @RequestParam(defaultValue = "false") boolean partial,
+                                      Model model,
+                                      HttpServletResponse response,
+                                      ServletWebRequest webRequest) {
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        int pageSize = resolvePageSize(size);
+        List<RecipeSummary> recipes = recipeQueryService.findFavoriteSummaries(resolveCursor(after), pageSize + 1);
+
+        addRecipePage(model, response, recipes, pageSize, "/recipes/favorites");
+        if (partial) {
+            return "home :: cardItems";
+        }
+
+        model.addAttribute("totalCount", recipeStatisticsService.getFavoriteRecipes());
         model.addAttribute("favoritesPage", true);
         return "home";
     }
 
     // カテゴリ別表示
     @GetMapping("/recipes/category/{category}")
-    public String showRecipesByCategory(@PathVariable String category, Model model) {
-        List<Recipe> recipes = recipeRepository.findByCategory(category);
-        model.addAttribute("recipes", recipes);
+    public String showRecipesByCategory(@PathVariable String category,
+                                        @RequestParam(required = false) Long after,
+                                        @RequestParam(required = false) Integer size,
+                                        @RequestParam(defaultValue = "false") boolean partial,
+                                        Model model,
+                                        HttpServletResponse response,
+                                        ServletWebRequest webRequest) {
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        int pageSize = resolvePageSize(size);
+        List<RecipeSummary> recipes = recipeQueryService.findCategorySummaries(
+                category, resolveCursor(after), pageSize + 1);
+
+        addRecipePage(model, response, recipes, pageSize, "/recipes/category/" + category);
+        if (partial) {
+            return "home :: cardItems";
+        }
+
+        model.addAttribute("totalCount", recipeStatisticsService.getCategoryCount(category));
         model.addAttribute("categoryName", category);
         return "home";
     }
 
-    // お気に入りトグル
+    // お気に入りトグル（1文の UPDATE で反転し、反転後の状態を返す）
     @PostMapping("/recipes/{id}/toggleFavorite")
     @ResponseBody
     public ResponseEntity<Boolean> toggleFavorite(@PathVariable Long id) {
         try {
-            Recipe recipe = recipeRepository.findById(id)
-                    .orElseThrow(() -> new NoSuchElementException("指定されたレシピが見つかりません ID: " + id));
-            recipe.setFavorite(!recipe.isFavorite());
-            recipeRepository.save(recipe);
-            return ResponseEntity.ok(recipe.isFavorite());
+            Optional<Boolean> favorite = recipeStatisticsService.update(() -> {
+                Optional<Boolean> toggled = recipeRepository.toggleFavorite(id);
+                toggled.ifPresent(recipeStatisticsService::favoriteChanged);
+                return toggled;
+            });
+            if (favorite.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            favoriteChanged(id, favorite.get());
+            return ResponseEntity.ok(favorite.get());
+        } catch (Exception e) {
+            log.error("お気に入りトグルエラー - ID: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // お気に入りを指定した状態にする（画面で連続したクリックをまとめ、最後の状態だけを送る場合に使う）
+    @PostMapping("/recipes/{id}/favorite")
+    @ResponseBody
+    public ResponseEntity<Boolean> setFavorite(@PathVariable Long id, @RequestParam boolean favorite) {
+        try {
+            int updated = recipeStatisticsService.update(() -> {
+                int count = recipeRepository.updateFavorite(id, favorite);
+                if (count > 0) {
+                    recipeStatisticsService.favoriteChanged(favorite);
+                }
+                return count;
+            });
+            if (updated > 0) {
+                favoriteChanged(id, favorite);
+            } else if (!recipeRepository.existsById(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(favorite);
         } catch (Exception e) {
-            System.err.println("お気に入りトグルエラー: " + e.getMessage());
+            log.error("お気に入り設定エラー - ID: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // お気に入りの変更を検索インデックス・キャッシュに反映するヘルパーメソッド（統計は DB の更新と一緒に反映する）
+    private void favoriteChanged(Long id, boolean favorite) {
+        recipeSearchIndex.updateFavorite(id, favorite);
+        recipeQueryService.evictRecipe(id);
+    }
+
     /**
      * 統計情報を取得するAPIエンドポイント
      */
     @GetMapping("/api/stats")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getRecipeStats() {
+    public ResponseEntity<Map<String, Object>> getRecipeStats(ServletWebRequest webRequest) {
+        if (isApiNotModified(webRequest)) {
+            return null;
+        }
         try {
-            List<Recipe> allRecipes = recipeRepository.findAll();
-            List<Recipe> favoriteRecipes = recipeRepository.findByFavoriteTrue();
-
-            // カテゴリ別の統計を計算
-            Map<String, Long> categoryStats = allRecipes.stream()
-                    .flatMap(recipe -> recipe.getCategories().stream())
-                    .collect(Collectors.groupingBy(
-                            category -> category,
-                            Collectors.counting()
-                    ));
+            // 集計済みの統計値を使用（レシピテーブルは参照しない）
+            Map<String, Long> categoryStats = recipeStatisticsService.getCategoryCounts();
 
             Map<String, Object> stats = new HashMap<>();
-            stats.put("totalRecipes", allRecipes.size());
-            stats.put("favoriteRecipes", favoriteRecipes.size());
+            stats.put("totalRecipes", recipeStatisticsService.getTotalRecipes());
+            stats.put("favoriteRecipes", recipeStatisticsService.getFavoriteRecipes());
             stats.put("categoryStats", categoryStats);
             stats.put("averageRecipesPerCategory",
                     categoryStats.isEmpty() ? 0 :
@@ -389,38 +598,105 @@ public class RecipeController {
 
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
-            System.err.println("統計情報取得エラー: " + e.getMessage());
+            log.error("統計情報取得エラー", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * 読み取りキャッシュのヒット数・ミス数を取得するAPIエンドポイント
+     */
+    @GetMapping("/api/admin/cache-stats")
+    @ResponseBody
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        return ResponseEntity.ok(recipeQueryService.getCacheStatistics());
+    }
+
     /**
      * データエクスポート機能
+     * 全件をメモリに載せずにストリーミングで出力する
+     *
+     * @param format json（JSON配列・デフォルト） / ndjson（1行1レシピ） / csv
+     * @param images path（画像パスのみ・デフォルト） / inline（Base64で埋め込み）
      */
     @GetMapping("/api/export")
     @ResponseBody
-    public ResponseEntity<List<Map<String, Object>>> exportRecipeData() {
+    public ResponseEntity<StreamingResponseBody> exportRecipeData(
+            @RequestParam(defaultValue = "json") String format,
+            @RequestParam(defaultValue = "path") String images) {
+        RecipeExportService.Format exportFormat;
+        RecipeExportService.ImageMode imageMode;
         try {
-            List<Recipe> allRecipes = recipeRepository.findAll();
-
-            List<Map<String, Object>> exportData = allRecipes.stream().map(recipe -> {
-                Map<String, Object> recipeData = new HashMap<>();
-                recipeData.put("id", recipe.getId());
-                recipeData.put("title", recipe.getTitle());
-                recipeData.put("ingredients", recipe.getIngredients());
-                recipeData.put("instructions", recipe.getInstructions());
-                recipeData.put("categories", recipe.getCategories());
-                recipeData.put("favorite", recipe.isFavorite());
-                recipeData.put("reference", recipe.getReference());
-                recipeData.put("hasImage", recipe.getImagePath() != null);
-                return recipeData;
-            }).collect(Collectors.toList());
-
-            return ResponseEntity.ok(exportData);
-        } catch (Exception e) {
-            System.err.println("データエクスポートエラー: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            exportFormat = RecipeExportService.Format.valueOf(format.toUpperCase());
+            imageMode = RecipeExportService.ImageMode.valueOf(images.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                recipeExportService.export(out, exportFormat, imageMode);
+            } catch (IOException | RuntimeException e) {
+                // クライアントの切断でも発生するためスタックトレースは出力しない
+                log.warn("データエクスポートエラー: {}", e.getMessage());
+                throw e;
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        switch (exportFormat) {
+            case NDJSON -> response
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipes-export.ndjson\"");
+            case CSV -> response
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipes-export.csv\"");
+            default -> response.contentType(MediaType.APPLICATION_JSON);
+        }
+        return response.body(body);
+    }
+
+    /**
+     * レシピの一括インポート
+     * リクエストボディを1レコードずつ読み込み、チャンク単位でバッチ登録する
+     *
+     * @param format ndjson（デフォルト） / csv（/api/export?format=csv と同じ列構成）
+     */
+    @PostMapping("/api/import")
+    @ResponseBody
+    public ResponseEntity<RecipeImportService.ImportJob> importRecipes(
+            @RequestParam(defaultValue = "ndjson") String format,
+            InputStream body) {
+        RecipeImportService.Format importFormat;
+        try {
+            importFormat = RecipeImportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        RecipeImportService.ImportJob job = recipeImportService.importRecipes(body, importFormat);
+        HttpStatus status = job.getState() == RecipeImportService.ImportJob.State.COMPLETED
+                ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(job);
+    }
+
+    /**
+     * インポートの進捗確認（実行中・最近のジョブ一覧）
+     */
+    @GetMapping("/api/import")
+    @ResponseBody
+    public ResponseEntity<List<RecipeImportService.ImportJob>> getImportJobs() {
+        return ResponseEntity.ok(recipeImportService.getJobs());
+    }
+
+    @GetMapping("/api/import/{jobId}")
+    @ResponseBody
+    public ResponseEntity<RecipeImportService.ImportJob> getImportJob(@PathVariable String jobId) {
+        RecipeImportService.ImportJob job = recipeImportService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(job);
     }
 
     /**
@@ -428,17 +704,13 @@ public class RecipeController {
      */
     @GetMapping("/api/categories")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getAllCategories() {
+    public ResponseEntity<Map<String, Object>> getAllCategories(ServletWebRequest webRequest) {
+        if (isApiNotModified(webRequest)) {
+            return null;
+        }
         try {
-            List<Recipe> allRecipes = recipeRepository.findAll();
-
-            // カテゴリとその使用回数を取得
-            Map<String, Long> categoryCount = allRecipes.stream()
-                    .flatMap(recipe -> recipe.getCategories().stream())
-                    .collect(Collectors.groupingBy(
-                            category -> category,
-                            Collectors.counting()
-                    ));
+            // カテゴリとその使用回数を取得（集計済みの値を使用）
+            Map<String, Long> categoryCount = recipeStatisticsService.getCategoryCounts();
 
             // カテゴリを使用回数の降順でソート
             List<Map.Entry<String, Long>> sortedCategories = categoryCount.entrySet().stream()
@@ -451,93 +723,204 @@ public class RecipeController {
 
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            System.err.println("カテゴリ取得エラー: " + e.getMessage());
+            log.error("カテゴリ取得エラー", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     /**
      * 検索機能の強化（APIエンドポイント）
+     * 転置インデックス（RecipeSearchIndex）で一致するレシピIDを求め、スコア順に1ページ分を返す
+     * 該当件数は X-Total-Count ヘッダーで返す
+     * 検索語・カテゴリの指定がない場合（全件・お気に入りのみ）は、インデックスを使わず一覧画面と同じクエリで id 順に返す
+     * （全レシピの走査・ソートをしない。次ページのカーソルは X-Next-Cursor ヘッダーで返す）
+     *
+     * @param after  検索語・カテゴリの指定がない場合の次ページのカーソル（X-Next-Cursor の値。page より優先）
+     * @param fields 応答に含める項目（カンマ区切り。例: id,title,ingredients）
+     *               省略時は id・title・imagePath・favorite・categories のみ（材料・作り方などの長いテキストは含めない）
      */
     @GetMapping("/api/search")
     @ResponseBody
-    public ResponseEntity<List<Recipe>> searchRecipes(
+    public ResponseEntity<List<Map<String, Object>>> searchRecipes(
+            @RequestParam(required = false) String q,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String ingredient,
-            @RequestParam(required = false) Boolean favorite) {
+            @RequestParam(required = false) Boolean favorite,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String fields,
+            ServletWebRequest webRequest) {
+        Set<RecipeField> selectedFields;
         try {
-            List<Recipe> allRecipes = recipeRepository.findAll();
-
-            List<Recipe> filteredRecipes = allRecipes.stream()
-                    .filter(recipe -> {
-                        boolean matches = true;
-
-                        if (title != null && !title.trim().isEmpty()) {
-                            matches &= recipe.getTitle().toLowerCase()
-                                    .contains(title.toLowerCase());
-                        }
-
-                        if (category != null && !category.trim().isEmpty()) {
-                            matches &= recipe.getCategories().stream()
-                                    .anyMatch(cat -> cat.toLowerCase()
-                                            .contains(category.toLowerCase()));
-                        }
-
-                        if (ingredient != null && !ingredient.trim().isEmpty()) {
-                            matches &= recipe.getIngredients().toLowerCase()
-                                    .contains(ingredient.toLowerCase());
-                        }
-
-                        if (favorite != null) {
-                            matches &= recipe.isFavorite() == favorite;
-                        }
-
-                        return matches;
-                    })
-                    .collect(Collectors.toList());
+            selectedFields = RecipeField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (isApiNotModified(webRequest)) {
+            return null;
+        }
+        try {
+            int pageSize = resolvePageSize(size);
+            if (isBlank(q) && isBlank(title) && isBlank(ingredient) && isBlank(category)) {
+                return listRecipes(favorite, after, Math.max(page, 0), pageSize, selectedFields);
+            }
+            RecipeSearchIndex.SearchResult result = recipeSearchIndex.search(
+                    q, title, ingredient, category, favorite, Math.max(page, 0), pageSize);
+
+            // スコア順のまま、指定した項目だけを取得（キャッシュにないレシピのみ DB から読み込む）
+            List<Map<String, Object>> rankedRecipes = recipeQueryService.findFieldsById(result.getIds(), selectedFields);
 
-            return ResponseEntity.ok(filteredRecipes);
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(result.getTotal()))
+                    .body(rankedRecipes);
         } catch (Exception e) {
-            System.err.println("検索エラー: " + e.getMessage());
+            log.error("検索エラー", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // 検索語・カテゴリの指定がない /api/search: 一覧と同じクエリで1ページ分と次ページのカーソルを返す
+    // after を指定した場合（または1ページ目）はキーセットページングで pageSize + 1 件、
+    // page だけを指定した場合は DB のページ指定（OFFSET）で pageSize 件を取得する
+    private ResponseEntity<List<Map<String, Object>>> listRecipes(Boolean favorite, Long after, int page, int pageSize,
+                                                                  Set<RecipeField> selectedFields) {
+        long total;
+        if (favorite == null) {
+            total = recipeStatisticsService.getTotalRecipes();
+        } else if (favorite) {
+            total = recipeStatisticsService.getFavoriteRecipes();
+        } else {
+            total = recipeStatisticsService.getTotalRecipes() - recipeStatisticsService.getFavoriteRecipes();
+        }
+
+        List<RecipeSummary> recipes;
+        boolean hasNext;
+        if (after == null && page > 0) {
+            recipes = recipeQueryService.findSummaryPage(favorite, page, pageSize);
+            hasNext = (long) (page + 1) * pageSize < total;
+        } else {
+            long cursor = resolveCursor(after);
+            if (favorite == null) {
+                recipes = recipeQueryService.findSummaries(cursor, pageSize + 1);
+            } else if (favorite) {
+                recipes = recipeQueryService.findFavoriteSummaries(cursor, pageSize + 1);
+            } else {
+                recipes = recipeQueryService.findNonFavoriteSummaries(cursor, pageSize + 1);
+            }
+            hasNext = recipes.size() > pageSize;
+            if (hasNext) {
+                recipes = recipes.subList(0, pageSize);
+            }
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header("X-Total-Count", String.valueOf(total));
+        if (hasNext && !recipes.isEmpty()) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(recipes.get(recipes.size() - 1).getId()));
+        }
+        return response.body(recipeQueryService.findFieldsOf(recipes, selectedFields));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
     /**
      * レシピの一括削除（管理機能）
+     * DB からは1回のトランザクションで削除し、画像ファイルはバックグラウンドのジョブで削除する
      * 注意: 本番環境では適切な認証・認可を実装してください
      */
     @PostMapping("/api/admin/reset-data")
     @ResponseBody
-    public ResponseEntity<String> resetAllData() {
+    public ResponseEntity<Map<String, Object>> resetAllData() {
         try {
-            // 画像ファイルも削除
-            List<Recipe> allRecipes = recipeRepository.findAll();
-            Path uploadPath = Paths.get(System.getProperty("user.dir"), "uploads");
-
-            for (Recipe recipe : allRecipes) {
-                if (recipe.getImagePath() != null) {
-                    try {
-                        Path imagePath = uploadPath.resolve(Paths.get(recipe.getImagePath()).getFileName());
-                        Files.deleteIfExists(imagePath);
-                    } catch (Exception imageDeleteError) {
-                        System.err.println("画像削除エラー: " + imageDeleteError.getMessage());
-                    }
-                }
-            }
+            RecipeDeletionService.DeletionResult result = recipeDeletionService.deleteAll();
+            return ResponseEntity.ok(deletionResponse("データが正常にリセットされました。", result));
+        } catch (Exception e) {
+            log.error("データリセットエラー", e);
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", "データリセットに失敗しました: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+        }
+    }
+
+    /**
+     * ID を指定したレシピの一括削除（管理機能）
+     * リクエストボディは ID の JSON 配列（例: [1, 2, 3]）。存在しない ID は無視する
+     */
+    @PostMapping("/api/admin/recipes/bulk-delete")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> bulkDeleteRecipes(@RequestBody List<Long> ids) {
+        try {
+            RecipeDeletionService.DeletionResult result = recipeDeletionService.deleteByIds(ids);
+            return ResponseEntity.ok(deletionResponse(result.getDeletedRecipes() + "件のレシピを削除しました。", result));
+        } catch (Exception e) {
+            log.error("一括削除エラー - 指定件数: {}", ids.size(), e);
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", "一括削除に失敗しました: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+        }
+    }
 
-            // 全レシピを削除
-            recipeRepository.deleteAll();
+    /**
+     * 画像削除ジョブの進捗確認（実行中・最近のジョブ一覧）
+     */
+    @GetMapping("/api/admin/image-cleanup")
+    @ResponseBody
+    public ResponseEntity<List<ImageCleanupService.CleanupJob>> getImageCleanupJobs() {
+        return ResponseEntity.ok(imageCleanupService.getJobs());
+    }
 
-            System.out.println("全データがリセットされました。削除されたレシピ数: " + allRecipes.size());
-            return ResponseEntity.ok("データが正常にリセットされました。");
+    @GetMapping("/api/admin/image-cleanup/{jobId}")
+    @ResponseBody
+    public ResponseEntity<ImageCleanupService.CleanupJob> getImageCleanupJob(@PathVariable String jobId) {
+        ImageCleanupService.CleanupJob job = imageCleanupService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
 
-        } catch (Exception e) {
-            System.err.println("データリセットエラー: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("データリセットに失敗しました: " + e.getMessage());
+    /**
+     * アップロード画像の整合性チェックを実行する（管理機能。通常は app.uploads.reconcile.cron の時刻に実行される）
+     * 実行中のジョブがある場合は、そのジョブを返す
+     */
+    @PostMapping("/api/admin/upload-reconciliation")
+    @ResponseBody
+    public ResponseEntity<UploadReconciliationService.ReconciliationJob> reconcileUploads() {
+        UploadReconciliationService.ReconciliationJob job = uploadReconciliationService.reconcile();
+        HttpStatus status = job.getState() == BackgroundJob.State.FAILED
+                ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(job);
+    }
+
+    /**
+     * 整合性チェックの結果確認（実行中・最近のジョブ一覧）
+     */
+    @GetMapping("/api/admin/upload-reconciliation")
+    @ResponseBody
+    public ResponseEntity<List<UploadReconciliationService.ReconciliationJob>> getUploadReconciliationJobs() {
+        return ResponseEntity.ok(uploadReconciliationService.getJobs());
+    }
+
+    @GetMapping("/api/admin/upload-reconciliation/{jobId}")
+    @ResponseBody
+    public ResponseEntity<UploadReconciliationService.ReconciliationJob> getUploadReconciliationJob(@PathVariable String jobId) {
+        UploadReconciliationService.ReconciliationJob job = uploadReconciliationService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(job);
+    }
+
+    // 一括削除の結果をレスポンスにするヘルパーメソッド
+    private Map<String, Object> deletionResponse(String message, RecipeDeletionService.DeletionResult result) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", message);
+        body.put("deletedRecipes", result.getDeletedRecipes());
+        body.put("imageCleanup", result.getImageCleanup());
+        return body;
     }
 
     // パラメータからレシピオブジェクトを作成するヘルパーメソッド
@@ -1,7 +1,11 @@
 package com.example.recipeapp.controller;
 
+import com.example.recipeapp.config.BoundedPasswordEncoder;
 import com.example.recipeapp.model.User;
 import com.example.recipeapp.repository.UserRepository;
+import com.example.recipeapp.service.CustomUserDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
@@ -16,12 +20,17 @@ import jakarta.validation.Valid;
 @Controller
 public class UserController {
 
+    private static final Logger log = LoggerFactory.getLogger(UserController.class);
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
     @GetMapping("/register")
     public String showRegisterForm(Model model) {
         model.addAttribute("user", new User());
@@ -35,7 +44,7 @@ public class UserController {
 
         // バリデーションエラーがある場合
         if (bindingResult.hasErrors()) {
-            System.out.println("バリデーションエラー: " + bindingResult.getAllErrors());
+            log.debug("バリデーションエラー: {}", bindingResult.getAllErrors());
             return "register";
         }
 
@@ -55,7 +64,7 @@ public class UserController {
 
         // 既存ユーザー名のチェック
         if (userRepository.findByUsername(username.trim()) != null) {
-            System.out.println("ユーザー名重複エラー: " + username);
+            log.debug("ユーザー名重複エラー: {}", username);
             redirectAttributes.addFlashAttribute("errorMessage", "そのユーザー名は既に使用されています。別のユーザー名を選択してください。");
             return "redirect:/register";
         }
@@ -69,14 +78,18 @@ public class UserController {
             user.setRole("ROLE_USER");
 
             User savedUser = userRepository.save(user);
-            System.out.println("新規ユーザー登録完了: " + savedUser.getUsername() + " (ID: " + savedUser.getId() + ")");
+            customUserDetailsService.evict(savedUser.getUsername());
+            log.info("新規ユーザー登録完了: {} (ID: {})", savedUser.getUsername(), savedUser.getId());
 
             redirectAttributes.addFlashAttribute("successMessage", "ユーザー登録が完了しました。ログインしてください。");
             return "redirect:/login";
 
+        } catch (BoundedPasswordEncoder.PasswordHashingBusyException e) {
+            log.warn("ユーザー登録の受付を見送りました: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("errorMessage", "ただいま混み合っています。しばらくしてからもう一度お試しください。");
+            return "redirect:/register";
         } catch (Exception e) {
-            System.err.println("ユーザー登録エラー: " + e.getMessage());
-            e.printStackTrace();
+            log.error("ユーザー登録エラー", e);
             redirectAttributes.addFlashAttribute("errorMessage", "ユーザー登録中にエラーが発生しました。もう一度お試しください。");
             return "redirect:/register";
         }
@@ -3,10 +3,12 @@ package com.example.recipeapp.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Set;
 
+// テーブル・インデックスは db/migration のマイグレーションで管理する
 @Entity
 @Data
 public class Recipe {
@@ -32,8 +34,9 @@ public class Recipe {
     @Column(length = 1000)
     private String reference;
 
-    // カテゴリ - 修正点: cascade設定とfetch戦略の明示
-    @ElementCollection(fetch = FetchType.EAGER)
+    // カテゴリ - 一覧取得時の N+1 を避けるため遅延読み込み + バッチフェッチ
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @CollectionTable(
             name = "recipe_category",
             joinColumns = @JoinColumn(name = "recipe_id")
@@ -41,8 +44,14 @@ public class Recipe {
     @Column(name = "category", length = 50) // カラム長を明示的に設定
     private Set<String> categories = new HashSet<>();
 
+    // 画像のパス（/uploads/ab/cd/<SHA-256>.jpg）。同じ画像を複数のレシピで共有する
     private String imagePath;
 
+    // 楽観ロック用のバージョン（編集画面を開いた後に別の更新があった場合は保存しない）
+    // お気に入りの切り替えなど一括の UPDATE 文でも 1 つ進める
+    @Version
+    private Long version;
+
     // カテゴリ用のヘルパーメソッド
     public void addCategory(String category) {
         if (categories == null) {
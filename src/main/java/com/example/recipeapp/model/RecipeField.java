@@ -0,0 +1,90 @@
+package com.example.recipeapp.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * API の応答に含めるレシピの項目（/api/search の fields パラメータ）
+ * summary の項目だけを指定した場合は RecipeSummary（長いテキスト列を読み込まない）から応答を作る。
+ */
+public enum RecipeField {
+
+    ID("id", true, Recipe::getId, RecipeSummary::getId),
+    TITLE("title", true, Recipe::getTitle, RecipeSummary::getTitle),
+    IMAGE_PATH("imagePath", true, Recipe::getImagePath, RecipeSummary::getImagePath),
+    FAVORITE("favorite", true, Recipe::isFavorite, RecipeSummary::isFavorite),
+    CATEGORIES("categories", true, Recipe::getCategories, RecipeSummary::getCategories),
+    INGREDIENTS("ingredients", false, Recipe::getIngredients, null),
+    INSTRUCTIONS("instructions", false, Recipe::getInstructions, null),
+    REFERENCE("reference", false, Recipe::getReference, null);
+
+    // fields を指定しない場合の項目（一覧表示に必要なもの）
+    public static final Set<RecipeField> DEFAULTS =
+            Collections.unmodifiableSet(EnumSet.of(ID, TITLE, IMAGE_PATH, FAVORITE, CATEGORIES));
+
+    private final String name;
+    private final boolean summary;
+    private final Function<Recipe, Object> recipeValue;
+    private final Function<RecipeSummary, Object> summaryValue;
+
+    RecipeField(String name, boolean summary,
+                Function<Recipe, Object> recipeValue, Function<RecipeSummary, Object> summaryValue) {
+        this.name = name;
+        this.summary = summary;
+        this.recipeValue = recipeValue;
+        this.summaryValue = summaryValue;
+    }
+
+    /**
+     * カンマ区切りの項目名（例: id,title,ingredients）を変換する。空の場合は DEFAULTS
+     *
+     * @throws IllegalArgumentException 知らない項目名が含まれる場合
+     */
+    public static Set<RecipeField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return DEFAULTS;
+        }
+        Set<RecipeField> parsed = EnumSet.noneOf(RecipeField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            parsed.add(byName(trimmed));
+        }
+        return parsed.isEmpty() ? DEFAULTS : parsed;
+    }
+
+    /**
+     * すべての項目が RecipeSummary にあるかどうか
+     */
+    public static boolean isSummaryOnly(Set<RecipeField> fields) {
+        return fields.stream().allMatch(field -> field.summary);
+    }
+
+    private static RecipeField byName(String name) {
+        for (RecipeField field : values()) {
+            if (field.name.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("不明な項目です: " + name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Object valueOf(Recipe recipe) {
+        return recipeValue.apply(recipe);
+    }
+
+    public Object valueOf(RecipeSummary summary) {
+        if (summaryValue == null) {
+            throw new IllegalStateException(name + " は RecipeSummary にない項目です");
+        }
+        return summaryValue.apply(summary);
+    }
+}
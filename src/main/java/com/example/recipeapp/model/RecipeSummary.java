@@ -0,0 +1,37 @@
+package com.example.recipeapp.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 一覧表示（レシピカード）用の軽量なレシピ情報
+ * 材料・作り方などの長いテキスト列は読み込まない
+ */
+@Data
+@NoArgsConstructor
+public class RecipeSummary {
+
+    private Long id;
+
+    private String title;
+
+    private String imagePath;
+
+    private boolean favorite;
+
+    // Recipe.version（カードの描画結果のキャッシュキーに使う）
+    private Long version;
+
+    private Set<String> categories = new HashSet<>();
+
+    public RecipeSummary(Long id, String title, String imagePath, boolean favorite, Long version) {
+        this.id = id;
+        this.title = title;
+        this.imagePath = imagePath;
+        this.favorite = favorite;
+        this.version = version;
+    }
+}
@@ -1,17 +1,174 @@
 package com.example.recipeapp.repository;
 
 import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.model.RecipeSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
 
     List<Recipe> findByFavoriteTrue();
 
-    @Query("SELECT r FROM Recipe r WHERE :category MEMBER OF r.categories")
-    List<Recipe> findByCategory(@Param("category") String category);
+    // キーセットページング: id をカーソルとして afterId より後のレシピを取得
+    List<Recipe> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    long countByFavoriteTrue();
+
+    // 一覧表示用: カード表示に必要な列のみを取得（カテゴリは findCategoriesByRecipeIds でまとめて取得）
+    @Query("SELECT new com.example.recipeapp.model.RecipeSummary(r.id, r.title, r.imagePath, r.favorite, r.version) " +
+            "FROM Recipe r WHERE r.id > :afterId ORDER BY r.id")
+    List<RecipeSummary> findSummariesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // 並び順を idx_recipe_favorite (favorite, id) の列順に合わせ、インデックス順のまま読み出す（favorite は常に true）
+    @Query("SELECT new com.example.recipeapp.model.RecipeSummary(r.id, r.title, r.imagePath, r.favorite, r.version) " +
+            "FROM Recipe r WHERE r.favorite = true AND r.id > :afterId ORDER BY r.favorite, r.id")
+    List<RecipeSummary> findFavoriteSummariesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // お気に入り以外の一覧（/api/search?favorite=false）。findFavoriteSummariesAfter と同じく idx_recipe_favorite の順に読み出す
+    @Query("SELECT new com.example.recipeapp.model.RecipeSummary(r.id, r.title, r.imagePath, r.favorite, r.version) " +
+            "FROM Recipe r WHERE r.favorite = false AND r.id > :afterId ORDER BY r.favorite, r.id")
+    List<RecipeSummary> findNonFavoriteSummariesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // ページ番号での取得（/api/search の page 指定）: 上の一覧と同じ順で OFFSET 分を読み飛ばす（並べ替えはしない）
+    @Query("SELECT new com.example.recipeapp.model.RecipeSummary(r.id, r.title, r.imagePath, r.favorite, r.version) " +
+            "FROM Recipe r ORDER BY r.id")
+    List<RecipeSummary> findSummaryPage(Pageable pageable);
+
+    @Query("SELECT new com.example.recipeapp.model.RecipeSummary(r.id, r.title, r.imagePath, r.favorite, r.version) " +
+            "FROM Recipe r WHERE r.favorite = :favorite ORDER BY r.favorite, r.id")
+    List<RecipeSummary> findSummaryPageByFavorite(@Param("favorite") boolean favorite, Pageable pageable);
+
+    // カテゴリ別一覧: recipe_category (category, recipe_id) のインデックスを範囲検索し、その順序のまま recipe と結合する
+    // カーソル条件と並び順を recipe_category 側の列に付けるためネイティブクエリで記述（件数が増えてもソートが発生しない）
+    @Query(value = "SELECT r.id AS id, r.title AS title, r.image_path AS imagePath, r.favorite AS favorite, r.version AS version " +
+            "FROM recipe_category c JOIN recipe r ON r.id = c.recipe_id " +
+            "WHERE c.category = :category AND c.recipe_id > :afterId ORDER BY c.category, c.recipe_id",
+            nativeQuery = true)
+    List<RecipeSummary> findCategorySummariesAfter(@Param("category") String category,
+                                                   @Param("afterId") Long afterId, Limit limit);
+
+    // 検索結果用: 指定したレシピのカード表示に必要な列のみを取得（並び順は呼び出し側で合わせる）
+    @Query("SELECT new com.example.recipeapp.model.RecipeSummary(r.id, r.title, r.imagePath, r.favorite, r.version) " +
+            "FROM Recipe r WHERE r.id IN :ids")
+    List<RecipeSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // 指定したレシピのカテゴリを1回のクエリで取得
+    @Query("SELECT r.id AS recipeId, c AS category FROM Recipe r JOIN r.categories c WHERE r.id IN :ids")
+    List<RecipeCategory> findCategoriesByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    // カテゴリごとのレシピ数（統計用）
+    @Query("SELECT c AS category, COUNT(r) AS count FROM Recipe r JOIN r.categories c GROUP BY c")
+    List<CategoryCount> countRecipesByCategory();
+
+    // 指定した画像のうち、いずれかのレシピから参照されているもの（画像の参照カウント用）
+    @Query("SELECT DISTINCT r.imagePath FROM Recipe r WHERE r.imagePath IN :paths")
+    List<String> findReferencedImagePaths(@Param("paths") Collection<String> paths);
+
+    @Query("SELECT DISTINCT r.imagePath FROM Recipe r WHERE r.imagePath IS NOT NULL")
+    List<String> findDistinctImagePaths();
+
+    // アップロード画像の整合性チェック用。全件をリストに読み込まず、fetch size 件ずつ取り出す
+    // （呼び出し側でトランザクションを開始し、Stream を閉じること。重複は呼び出し側で除く）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.imagePath FROM Recipe r WHERE r.imagePath IS NOT NULL")
+    Stream<String> streamImagePaths();
+
+    // 削除の前に、統計・画像の後始末に必要な列だけを取得し、行ロック（FOR UPDATE）を取る
+    // 削除までの間に他のリクエストがこれらの行を削除・更新できないため、読み取った行がそのまま削除した行になる
+    @Query(value = "SELECT r.id AS id, r.favorite AS favorite, r.image_path AS imagePath FROM recipe r " +
+            "WHERE r.id IN :ids FOR UPDATE", nativeQuery = true)
+    List<RecipeDeletion> lockDeletionsByIds(@Param("ids") Collection<Long> ids);
+
+    // 一括削除: エンティティを読み込まずに削除し、削除したレシピの件数を返す
+    // Hibernate が同じトランザクションで先に recipe_category（@ElementCollection）の行を1文で削除する
+    @Modifying
+    @Query("DELETE FROM Recipe r")
+    int deleteAllRecipesInBatch();
+
+    @Modifying
+    @Query("DELETE FROM Recipe r WHERE r.id IN :ids")
+    int deleteRecipesByIdsInBatch(@Param("ids") Collection<Long> ids);
+
+    // 1件削除: 削除した件数を返す（同時に削除された場合は 0。deleteById と違い、削除できたかどうかが分かる）
+    @Modifying
+    @Query("DELETE FROM Recipe r WHERE r.id = :id")
+    int deleteRecipeById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Recipe r SET r.imagePath = :newPath, r.version = r.version + 1 WHERE r.imagePath = :oldPath")
+    int replaceImagePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    // お気に入りを1文で反転する（エンティティを読み込まず、favorite とバージョンのみ更新する）
+    // 同時に切り替えても行ロックで順に反転されるため、更新が失われない
+    @Modifying
+    @Transactional
+    @Query("UPDATE Recipe r SET r.favorite = CASE WHEN r.favorite = true THEN false ELSE true END, " +
+            "r.version = r.version + 1 WHERE r.id = :id")
+    int invertFavorite(@Param("id") Long id);
+
+    // お気に入りを指定した状態にする（既に同じ状態なら更新しない）。変更した件数を返す
+    @Modifying
+    @Transactional
+    @Query("UPDATE Recipe r SET r.favorite = :favorite, r.version = r.version + 1 " +
+            "WHERE r.id = :id AND r.favorite <> :favorite")
+    int updateFavorite(@Param("id") Long id, @Param("favorite") boolean favorite);
+
+    @Query("SELECT r.favorite FROM Recipe r WHERE r.id = :id")
+    Optional<Boolean> findFavoriteById(@Param("id") Long id);
+
+    /**
+     * お気に入りを反転し、反転後の状態を返す（レシピが存在しない場合は空）
+     * 反転と読み取りを同じトランザクションで行うため、他の切り替えが間に入らない
+     */
+    @Transactional
+    default Optional<Boolean> toggleFavorite(Long id) {
+        if (invertFavorite(id) == 0) {
+            return Optional.empty();
+        }
+        return findFavoriteById(id);
+    }
+
+    /**
+     * レシピIDとカテゴリの組
+     */
+    interface RecipeCategory {
+        Long getRecipeId();
+
+        String getCategory();
+    }
+
+    /**
+     * 削除するレシピの ID・お気に入り・画像パス
+     */
+    interface RecipeDeletion {
+        Long getId();
+
+        boolean isFavorite();
+
+        String getImagePath();
+    }
+
+    /**
+     * カテゴリとそのレシピ数
+     */
+    interface CategoryCount {
+        String getCategory();
+
+        long getCount();
+    }
 
 }
@@ -0,0 +1,61 @@
+package com.example.recipeapp.service;
+
+import java.util.UUID;
+
+/**
+ * バックグラウンドで実行するジョブの状態（画像削除・アップロード画像の整合性チェック）
+ * ID・状態・エラー・経過時間を持ち、進捗の件数はサブクラスで追加する。
+ */
+public abstract class BackgroundJob {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+    private volatile State state = State.QUEUED;
+    private volatile String error;
+
+    void start() {
+        this.state = State.RUNNING;
+    }
+
+    void complete() {
+        finish(State.COMPLETED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(State.FAILED);
+    }
+
+    boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    private void finish(State state) {
+        this.finishedAt = System.currentTimeMillis();
+        this.state = state;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getElapsedMillis() {
+        return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+}
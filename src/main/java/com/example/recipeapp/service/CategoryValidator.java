@@ -0,0 +1,69 @@
+package com.example.recipeapp.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * レシピのカテゴリのバリデーション
+ * 画面からの登録・更新と一括インポートで同じルールを使う
+ */
+@Component
+public class CategoryValidator {
+
+    public static final int MAX_CATEGORIES = 3;
+
+    // カテゴリ数をバリデーション（null・空文字を除外し、重複を除去した上で上限をチェック）
+    public ValidationResult validate(List<String> categories) {
+        ValidationResult result = new ValidationResult();
+
+        if (categories == null || categories.isEmpty()) {
+            result.categories = new HashSet<>();
+            result.valid = true;
+            return result;
+        }
+
+        // nullと空文字列を除外してから重複を除去
+        Set<String> uniqueCategories = new HashSet<>();
+        for (String cat : categories) {
+            if (cat != null && !cat.trim().isEmpty()) {
+                uniqueCategories.add(cat.trim());
+            }
+        }
+
+        // カテゴリ数の制限チェック
+        if (uniqueCategories.size() > MAX_CATEGORIES) {
+            result.categories = uniqueCategories;
+            result.valid = false;
+            result.errorMessage = "カテゴリは" + MAX_CATEGORIES + "つまでしか選択できません。現在" + uniqueCategories.size() + "つ選択されています。";
+            return result;
+        }
+
+        result.categories = uniqueCategories;
+        result.valid = true;
+        return result;
+    }
+
+    /**
+     * バリデーション結果
+     */
+    public static class ValidationResult {
+        private Set<String> categories;
+        private boolean valid;
+        private String errorMessage;
+
+        public Set<String> getCategories() {
+            return categories;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+}
@@ -3,30 +3,65 @@ package com.example.recipeapp.service;
 import com.example.recipeapp.model.User;
 import com.example.recipeapp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.util.Collections;
 
+/**
+ * ログイン時のユーザー情報の読み込み（キャッシュ付き）
+ * 認証後に Spring Security がパスワードを消去するため、キャッシュには UserDetails ではなく値のコピーを入れ、
+ * 呼び出しごとに UserDetails を作る。ユーザーを登録・変更した後は evict を呼び出すこと。
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    public static final String USER_CACHE = "users";
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username);
-
+        CachedUser user = cache().get(username, CachedUser.class);
         if (user == null) {
-            throw new UsernameNotFoundException("ユーザーが見つかりません: " + username);
+            user = load(username);
+            // 存在しないユーザーはキャッシュしない（登録直後にログインできるように）
+            if (user == null) {
+                throw new UsernameNotFoundException("ユーザーが見つかりません: " + username);
+            }
+            cache().put(username, user);
         }
 
         return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                Collections.singleton(new SimpleGrantedAuthority(user.getRole()))
+                user.username(),
+                user.password(),
+                Collections.singleton(new SimpleGrantedAuthority(user.role()))
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * ユーザーのキャッシュを破棄する
+     */
+    public void evict(String username) {
+        cache().evict(username);
+    }
+
+    private CachedUser load(String username) {
+        User user = userRepository.findByUsername(username);
+        return user != null ? new CachedUser(user.getUsername(), user.getPassword(), user.getRole()) : null;
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(USER_CACHE);
+    }
+
+    private record CachedUser(String username, String password, String role) {
+    }
+}
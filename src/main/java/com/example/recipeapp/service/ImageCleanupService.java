@@ -0,0 +1,116 @@
+package com.example.recipeapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * レシピの一括削除で参照されなくなった画像ファイルの削除（バックグラウンドのジョブ）
+ * 画像は BATCH_SIZE 件ずつ ImageStorageService.release に渡す（参照の確認は1回のクエリでまとめて行う）。
+ * 進捗は getJob / getJobs で確認できる。
+ */
+@Service
+public class ImageCleanupService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageCleanupService.class);
+
+    // 1回の参照確認で扱う画像の数
+    private static final int BATCH_SIZE = 200;
+
+    // 保持するジョブ履歴の件数
+    private static final int MAX_JOB_HISTORY = 20;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    @Qualifier("imageCleanupExecutor")
+    private ThreadPoolTaskExecutor imageCleanupExecutor;
+
+    private final JobHistory<CleanupJob> jobs = new JobHistory<>(MAX_JOB_HISTORY);
+
+    /**
+     * 画像の削除をジョブとして登録する（呼び出し元は完了を待たない）
+     * レシピの削除を DB に反映した後に呼び出すこと。
+     */
+    public CleanupJob cleanup(Collection<String> imagePaths) {
+        List<String> candidates = new ArrayList<>(new LinkedHashSet<>(imagePaths));
+        candidates.remove(null);
+        CleanupJob job = new CleanupJob(candidates.size());
+        jobs.add(job);
+        if (candidates.isEmpty()) {
+            job.complete();
+            return job;
+        }
+
+        try {
+            imageCleanupExecutor.execute(() -> run(job, candidates));
+        } catch (TaskRejectedException e) {
+            log.warn("画像削除ジョブを登録できませんでした - ジョブ: {}, 画像数: {}", job.getId(), candidates.size());
+            job.fail("削除待ちのジョブが多すぎるため実行できませんでした（未使用の画像は後で削除されます）");
+        }
+        return job;
+    }
+
+    public CleanupJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public List<CleanupJob> getJobs() {
+        return jobs.list();
+    }
+
+    private void run(CleanupJob job, List<String> imagePaths) {
+        job.start();
+        try {
+            for (int from = 0; from < imagePaths.size(); from += BATCH_SIZE) {
+                List<String> batch = imagePaths.subList(from, Math.min(from + BATCH_SIZE, imagePaths.size()));
+                job.deleted.addAndGet(imageStorageService.release(batch));
+                job.processed.addAndGet(batch.size());
+            }
+            job.complete();
+        } catch (Exception e) {
+            log.error("画像削除エラー - ジョブ: {}", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+        log.info("画像削除ジョブ完了: {}件中 {}件削除 ({}ms)", job.getTotal(), job.getDeleted(), job.getElapsedMillis());
+    }
+
+    /**
+     * 画像削除ジョブの状態
+     */
+    public static class CleanupJob extends BackgroundJob {
+
+        private final long total;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+
+        CleanupJob(long total) {
+            this.total = total;
+        }
+
+        // 削除の対象（レシピから外れた画像）の数
+        public long getTotal() {
+            return total;
+        }
+
+        public long getProcessed() {
+            return processed.get();
+        }
+
+        // 実際に削除した画像の数（他のレシピが使っている画像・アップロード直後の画像は残す）
+        public long getDeleted() {
+            return deleted.get();
+        }
+    }
+}
@@ -0,0 +1,557 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.repository.RecipeRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * レシピ画像の保存・削除と、テンプレートで使う画像URLの組み立て
+ * 画像は内容の SHA-256 をファイル名にして uploads/ab/cd/<SHA-256>.jpg に保存する（内容アドレス方式）。
+ * 同じ画像は1ファイルだけ保存して複数のレシピで共有し、どのレシピからも参照されなくなった時点で削除する。
+ * 保存後にサイズ違いの画像を非同期で生成し、生成済みのものだけを srcset に含める。
+ */
+@Service
+public class ImageStorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStorageService.class);
+
+    private static final String URL_PREFIX = "/uploads/";
+
+    // 画像形式の判定に使う先頭のバイト数
+    private static final int MAGIC_BYTES = 12;
+
+    // 読み込みながら書き出すときのバッファ（画像全体をメモリに載せない）
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // 保存済みの元画像のパス（/uploads/ab/cd/<SHA-256>.<拡張子>）
+    private static final Pattern STORED_IMAGE_PATH =
+            Pattern.compile("/uploads/([0-9a-f]{2})/([0-9a-f]{2})/\\1\\2[0-9a-f]{60}\\.(jpg|png|gif|webp)");
+
+    // 保存できる画像形式の拡張子
+    private static final List<String> IMAGE_EXTENSIONS = List.of("jpg", "png", "gif", "webp");
+
+    // 同じ画像の保存と削除を排他するためのロック（ハッシュ値で振り分け）
+    // ロック中にファイル操作・DB 参照を行うため、仮想スレッドがキャリアスレッドを占有しないよう synchronized ではなく ReentrantLock を使う
+    private final ReentrantLock[] locks = new ReentrantLock[64];
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeQueryService recipeQueryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.servlet.multipart.max-file-size:10MB}")
+    private DataSize maxFileSize;
+
+    // 保存直後の画像を削除・隔離しない期間
+    // 画像は先にアップロードされ、レシピのフォームが送信されるまではどのレシピからも参照されないため、
+    // フォームの入力にかかる時間より十分長くする（別のレシピの削除・整合性チェックで消されないように）
+    @Value("${app.uploads.pending-grace-period:24h}")
+    private Duration pendingGracePeriod;
+
+    @Value("${app.uploads.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.uploads.quarantine-dir:uploads-quarantine}")
+    private String quarantineDir;
+
+    public ImageStorageService() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * アップロードされた画像を保存し、画像パス（/uploads/ab/cd/xxx.jpg）を返す
+     * 同じ内容の画像がすでにある場合は新しく保存せず、既存の画像のパスを返す。
+     */
+    public String store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return store(in);
+        }
+    }
+
+    /**
+     * 画像を読み込みながら SHA-256 を計算して uploads/ 内の一時ファイルに書き出し、ハッシュ値の場所へ移動する
+     * 先頭のバイト列で画像形式を確認してから書き始め、上限（max-file-size）を超えた時点で読み込みを打ち切る。
+     * 書き出した後、ヘッダーの寸法が画素数の上限（app.images.max-pixels）を超えていれば保存しない。
+     * リクエストボディを直接渡せば、マルチパートの一時ファイルを経由せず1回の書き込みで保存できる。
+     */
+    public String store(InputStream in) throws IOException {
+        byte[] head = in.readNBytes(MAGIC_BYTES);
+        String extension = detectExtension(head);
+        if (extension == null) {
+            throw new UnsupportedImageException();
+        }
+
+        Path uploadPath = getUploadPath();
+        Files.createDirectories(uploadPath);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Path temp = uploadPath.resolve(".upload-" + UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = head.length;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                digest.update(head);
+                out.write(head);
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxFileSize.toBytes()) {
+                        throw new ImageTooLargeException(maxFileSize);
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            // 寸法（ヘッダー）を確認し、デコードに大量のメモリが必要な画像は保存しない
+            Dimension dimensions = imageVariantService.readDimensions(temp);
+            if (dimensions != null && !imageVariantService.isWithinPixelLimit(dimensions.width, dimensions.height)) {
+                throw new ImageTooLargeException(dimensions, imageVariantService.getMaxPixels());
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String relativePath = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + extension;
+            Path target = uploadPath.resolve(relativePath);
+
+            boolean duplicate;
+            ReentrantLock lock = lockFor(hash);
+            lock.lock();
+            try {
+                duplicate = Files.isRegularFile(target);
+                if (duplicate) {
+                    // 同じ画像が保存済み。猶予期間中は削除されないよう更新日時を新しくする
+                    Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                lock.unlock();
+            }
+            recordUpload(sample, size, duplicate ? "duplicate" : "stored");
+
+            if (!Files.exists(ImageVariantService.variantPath(target, ImageVariantService.Variant.CARD))) {
+                imageVariantService.generateAsync(target);
+            }
+            return URL_PREFIX + relativePath;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 保存できる画像のサイズの上限
+     */
+    public DataSize getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * 先にアップロードされた画像のパス（レシピの登録・更新時に送られてくる）を確認し、正規化したパスを返す
+     * 保存済みの元画像（サイズ違いの画像・旧形式の画像は除く）でなければ null
+     */
+    public String findStoredImage(String imagePath) {
+        Path file = resolve(imagePath);
+        return file != null ? storedImagePathOf(file) : null;
+    }
+
+    /**
+     * uploads/ 内のファイルの画像パス（/uploads/ab/cd/xxx.jpg）を返す
+     * 内容アドレス方式で保存した元画像でなければ null（ファイルの有無は確認しない）
+     */
+    public String storedImagePathOf(Path file) {
+        String url = toUrl(file.toAbsolutePath().normalize());
+        return STORED_IMAGE_PATH.matcher(url).matches() ? url : null;
+    }
+
+    // アップロードされた画像のサイズと保存にかかった時間（result: stored = 新規保存 / duplicate = 保存済みの画像と同じ）
+    private void recordUpload(Timer.Sample sample, long size, String result) {
+        DistributionSummary.builder("recipeapp.upload.bytes")
+                .description("アップロードされた画像のサイズ")
+                .baseUnit("bytes")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(size);
+        sample.stop(Timer.builder("recipeapp.upload.duration")
+                .description("アップロードされた画像の保存にかかった時間")
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+
+    /**
+     * レシピから参照されなくなった画像（とサイズ違いの画像）を削除する
+     * レシピの削除・画像の差し替えを DB に反映した後に呼び出すこと。
+     */
+    public void release(String imagePath) {
+        if (imagePath != null) {
+            release(List.of(imagePath));
+        }
+    }
+
+    /**
+     * 削除した画像（元画像）の数を返す
+     */
+    public int release(Collection<String> imagePaths) {
+        Set<String> candidates = new HashSet<>(imagePaths);
+        candidates.remove(null);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        // まだ参照されている画像を1回のクエリで除外
+        candidates.removeAll(recipeRepository.findReferencedImagePaths(candidates));
+
+        long threshold = System.currentTimeMillis() - pendingGracePeriod.toMillis();
+        int deleted = 0;
+        for (String imagePath : candidates) {
+            Path file = toFile(imagePath);
+            if (file == null) {
+                continue;
+            }
+            ReentrantLock lock = lockFor(hashOf(file));
+            lock.lock();
+            try {
+                // ロックを取ってから参照がないことを再確認して削除する
+                if (!recipeRepository.findReferencedImagePaths(List.of(imagePath)).isEmpty()) {
+                    continue;
+                }
+                try {
+                    if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toMillis() > threshold) {
+                        continue;
+                    }
+                    if (Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("画像削除エラー: {}", e.getMessage());
+                }
+                imageVariantService.deleteVariants(file);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 参照されていない元画像を隔離用のディレクトリ（uploads-quarantine/）に移し、サイズ違いの画像を削除する
+     * 参照の有無と猶予期間はロックを取ってから確認し、隔離した場合は true を返す。
+     * 隔離したファイルの更新日時は隔離した日時にする（完全に削除するまでの保持期間の起点）。
+     */
+    public boolean quarantine(Path file) throws IOException {
+        String imagePath = storedImagePathOf(file);
+        if (imagePath == null) {
+            return false;
+        }
+        long threshold = System.currentTimeMillis() - pendingGracePeriod.toMillis();
+        ReentrantLock lock = lockFor(hashOf(file));
+        lock.lock();
+        try {
+            if (!Files.isRegularFile(file) || Files.getLastModifiedTime(file).toMillis() > threshold
+                    || !recipeRepository.findReferencedImagePaths(List.of(imagePath)).isEmpty()) {
+                return false;
+            }
+            Path target = quarantinePathOf(file);
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            imageVariantService.deleteVariants(file);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 隔離した画像を uploads/ に戻す（レシピから参照されているのにファイルがない場合）
+     * 戻した場合は true を返し、サイズ違いの画像を作り直す。
+     */
+    public boolean restore(String imagePath) throws IOException {
+        Path file = toFile(imagePath);
+        if (file == null || storedImagePathOf(file) == null) {
+            return false;
+        }
+        Path quarantined = quarantinePathOf(file);
+        ReentrantLock lock = lockFor(hashOf(file));
+        lock.lock();
+        try {
+            if (Files.exists(file) || !Files.isRegularFile(quarantined)) {
+                return false;
+            }
+            Files.createDirectories(file.getParent());
+            Files.move(quarantined, file);
+            // 猶予期間中は削除されないよう更新日時を新しくする
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } finally {
+            lock.unlock();
+        }
+        imageVariantService.generateAsync(file);
+        return true;
+    }
+
+    /**
+     * 元画像（同じハッシュ値のファイル）がないサイズ違いの画像を削除する。削除した場合は true
+     */
+    public boolean deleteOrphanVariant(Path variant) throws IOException {
+        if (!ImageVariantService.isVariantFile(variant)) {
+            return false;
+        }
+        String hash = hashOf(variant);
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            for (String extension : IMAGE_EXTENSIONS) {
+                if (Files.exists(variant.resolveSibling(hash + "." + extension))) {
+                    return false;
+                }
+            }
+            return Files.deleteIfExists(variant);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 画像パス（/uploads/xxx）から実ファイルを取得。存在しない場合は null
+     */
+    public Path resolve(String imagePath) {
+        Path file = toFile(imagePath);
+        return file != null && Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * カード表示用の画像URL（未生成の場合は元画像）
+     */
+    public String cardUrl(String imagePath) {
+        return variantUrl(imagePath, ImageVariantService.Variant.CARD);
+    }
+
+    /**
+     * 詳細表示用の画像URL（未生成の場合は元画像）
+     */
+    public String detailUrl(String imagePath) {
+        return variantUrl(imagePath, ImageVariantService.Variant.DETAIL);
+    }
+
+    /**
+     * img タグの srcset。サイズ違いの画像がまだない場合は null（属性を出力しない）
+     */
+    public String srcset(String imagePath) {
+        Path file = toFile(imagePath);
+        if (file == null) {
+            return null;
+        }
+        List<String> candidates = new ArrayList<>();
+        for (ImageVariantService.Variant variant : ImageVariantService.Variant.values()) {
+            Path variantFile = ImageVariantService.variantPath(file, variant);
+            if (Files.isRegularFile(variantFile)) {
+                candidates.add(toUrl(variantFile) + " " + variant.getWidth() + "w");
+            }
+        }
+        return candidates.isEmpty() ? null : String.join(", ", candidates);
+    }
+
+    /**
+     * 旧形式（uploads/時刻_元のファイル名）の画像を内容アドレス方式に移行する
+     * 同じ画像が複数回アップロードされていた場合は1ファイルにまとまる。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void migrateLegacyImages() {
+        int migrated = 0;
+        for (String imagePath : recipeRepository.findDistinctImagePaths()) {
+            if (!isLegacyPath(imagePath)) {
+                continue;
+            }
+            Path legacyFile = resolve(imagePath);
+            if (legacyFile == null) {
+                continue;
+            }
+            try {
+                String newPath;
+                try (InputStream in = Files.newInputStream(legacyFile)) {
+                    newPath = store(in);
+                }
+                recipeRepository.replaceImagePath(imagePath, newPath);
+                Files.deleteIfExists(legacyFile);
+                imageVariantService.deleteVariants(legacyFile);
+                migrated++;
+            } catch (Exception e) {
+                log.warn("画像の移行エラー ({}): {}", imagePath, e.getMessage());
+            }
+        }
+        if (migrated > 0) {
+            recipeQueryService.evictAll();
+            log.info("画像を内容アドレス方式に移行しました。画像数: {}", migrated);
+        }
+    }
+
+    /**
+     * 起動時に、サイズ違いの画像がまだない既存の画像を1件ずつ処理する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void generateMissingVariants() {
+        Path uploadPath = getUploadPath();
+        if (!Files.isDirectory(uploadPath)) {
+            return;
+        }
+        imageVariantService.generateAllAsync(uploadPath, this::isMissingVariants);
+    }
+
+    // カード用の画像は必ず生成されるため、その有無で処理済みかどうかを判定する
+    private boolean isMissingVariants(Path file) {
+        return !Files.exists(ImageVariantService.variantPath(file, ImageVariantService.Variant.CARD));
+    }
+
+    private String variantUrl(String imagePath, ImageVariantService.Variant variant) {
+        Path file = toFile(imagePath);
+        if (file == null) {
+            return imagePath;
+        }
+        Path variantFile = ImageVariantService.variantPath(file, variant);
+        return Files.isRegularFile(variantFile) ? toUrl(variantFile) : imagePath;
+    }
+
+    // 画像パスを uploads/ 配下のファイルに変換する（uploads/ の外を指すパスは null）
+    private Path toFile(String imagePath) {
+        if (imagePath == null) {
+            return null;
+        }
+        String relative = imagePath.startsWith(URL_PREFIX) ? imagePath.substring(URL_PREFIX.length()) : imagePath;
+        Path uploadPath = getUploadPath();
+        Path file = uploadPath.resolve(relative).normalize();
+        return file.startsWith(uploadPath) && !file.equals(uploadPath) ? file : null;
+    }
+
+    private String toUrl(Path file) {
+        return URL_PREFIX + getUploadPath().relativize(file).toString().replace('\\', '/');
+    }
+
+    // 旧形式のパスはサブディレクトリを持たない
+    private boolean isLegacyPath(String imagePath) {
+        return imagePath.startsWith(URL_PREFIX) && imagePath.indexOf('/', URL_PREFIX.length()) < 0;
+    }
+
+    // ファイル名（<SHA-256>.jpg）からハッシュ値を取り出す
+    private String hashOf(Path file) {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.indexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    // 先頭のバイト列から画像形式を判定する（対応していない形式は null）
+    private String detectExtension(byte[] head) {
+        int read = head.length;
+        if (read >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (read >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return "png";
+        }
+        if (read >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8') {
+            return "gif";
+        }
+        if (read >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    private ReentrantLock lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), locks.length)];
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 隔離先のパス（uploads/ と同じ ab/cd/ の構成）
+    private Path quarantinePathOf(Path file) {
+        return getQuarantinePath().resolve(getUploadPath().relativize(file));
+    }
+
+    /**
+     * 画像の保存先（app.uploads.dir。相対パスは作業ディレクトリから）
+     */
+    public Path getUploadPath() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 参照されていない画像の隔離先（app.uploads.quarantine-dir。uploads/ は静的に公開されるため、その外に置く）
+     */
+    public Path getQuarantinePath() {
+        return Paths.get(quarantineDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 画像として扱えない形式（先頭のバイト列が JPEG / PNG / GIF / WebP のいずれでもない）
+     */
+    public static class UnsupportedImageException extends IOException {
+
+        UnsupportedImageException() {
+            super("対応していない画像形式です（JPEG / PNG / GIF / WebP のみ）");
+        }
+    }
+
+    /**
+     * 画像のサイズ（ファイルサイズ・画素数）が上限を超えている
+     */
+    public static class ImageTooLargeException extends IOException {
+
+        ImageTooLargeException(DataSize maxFileSize) {
+            super("画像のサイズが上限（" + maxFileSize.toMegabytes() + "MB）を超えています");
+        }
+
+        ImageTooLargeException(Dimension dimensions, long maxPixels) {
+            super("画像の画素数（" + dimensions.width + "x" + dimensions.height + "）が上限（"
+                    + maxPixels / 10_000 + "万画素）を超えています");
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.example.recipeapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * アップロード画像からサイズ違いの画像（カード用・詳細用）を生成するサービス
+ * 画像は元画像と同じディレクトリに「元のファイル名.variant.jpg / .png」で保存する。
+ * 再エンコードするため EXIF などのメタデータは出力されない（向きだけは画素に反映してから捨てる）。
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    // JPEG の品質（0.0〜1.0）
+    private static final float JPEG_QUALITY = 0.82f;
+
+    // EXIF の Orientation タグ
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    // 間引いてデコードしても、最大のサイズ違いの画像の幅のこの倍数以上は残す（縮小時の画質のため）
+    private static final int SUBSAMPLING_MARGIN = 2;
+
+    /**
+     * 生成する画像の種類
+     */
+    public enum Variant {
+        // 一覧のカード用
+        CARD("card", 480),
+        // 詳細表示・高解像度ディスプレイ用
+        DETAIL("detail", 1200);
+
+        private final String suffix;
+        private final int width;
+
+        Variant(String suffix, int width) {
+            this.suffix = suffix;
+            this.width = width;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+    }
+
+    // 最大のサイズ違いの画像の幅
+    private static final int MAX_VARIANT_WIDTH = Variant.DETAIL.getWidth();
+
+    @Autowired
+    @Qualifier("imageProcessingExecutor")
+    private ThreadPoolTaskExecutor imageProcessingExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 読み込む画像の画素数（幅 × 高さ）の上限
+    // ファイルサイズが小さくても大きな寸法を宣言した画像はデコード時に大量のメモリを使うため、寸法で制限する
+    @Value("${app.images.max-pixels:50000000}")
+    private long maxPixels;
+
+    // サイズ違いの画像を生成するたびに進める値（画像の URL・srcset を含む描画結果のキャッシュを作り直すため）
+    private final AtomicLong generation = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * 画像の生成をスレッドプールに登録する（呼び出し元は完了を待たない）
+     */
+    public void generateAsync(Path original) {
+        imageProcessingExecutor.execute(() -> generate(original));
+    }
+
+    /**
+     * ディレクトリ内（サブディレクトリを含む）の元画像のうち、条件に合うものを1件ずつ処理するタスクを登録する
+     * 大量の画像でキューを埋めないよう、1つのタスクの中で順番に処理する。
+     */
+    public void generateAllAsync(Path directory, Predicate<Path> filter) {
+        imageProcessingExecutor.execute(() -> {
+            int count = 0;
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    try {
+                        if (Files.isRegularFile(file) && !file.getFileName().toString().startsWith(".")
+                                && !isVariantFile(file) && filter.test(file)) {
+                            generate(file);
+                            count++;
+                        }
+                    } catch (RuntimeException e) {
+                        // 1件の失敗で残りの画像の処理を止めない
+                        log.warn("画像生成エラー ({}): {}", file.getFileName(), e.getMessage());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("画像ディレクトリの読み込みエラー: {}", e.getMessage());
+            }
+            if (count > 0) {
+                log.info("サイズ違いの画像を生成しました。画像数: {}", count);
+            }
+        });
+    }
+
+    /**
+     * 元画像からサイズ違いの画像を生成する
+     * カード用は必ず生成し、それより大きいサイズは元画像の幅を超えない範囲でのみ生成する。
+     * ImageIO で読めない形式（WebP など）の場合は何もしない。
+     */
+    public void generate(Path original) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "generated";
+        try {
+            BufferedImage source = readOriented(original);
+            if (source == null) {
+                log.debug("サイズ違いの画像を生成できない形式のためスキップします: {}", original.getFileName());
+                result = "skipped";
+                return;
+            }
+            boolean png = isPngOutput(original);
+            for (Variant variant : Variant.values()) {
+                BufferedImage resized = resize(source, variant.getWidth(), png);
+                write(resized, variantPath(original, variant), png);
+                // 元画像がこのサイズ以下なら、これより大きいサイズは作らない
+                if (source.getWidth() <= variant.getWidth()) {
+                    break;
+                }
+            }
+            generation.incrementAndGet();
+        } catch (Exception e) {
+            result = "error";
+            log.warn("画像生成エラー ({}): {}", original.getFileName(), e.getMessage());
+        } finally {
+            sample.stop(Timer.builder("recipeapp.images.generate")
+                    .description("1枚の画像からサイズ違いの画像を生成するのにかかった時間")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * サイズ違いの画像を生成するたびに変わる値
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 元画像に対応するサイズ違いの画像をすべて削除する
+     */
+    public void deleteVariants(Path original) {
+        for (Variant variant : Variant.values()) {
+            try {
+                Files.deleteIfExists(variantPath(original, variant));
+            } catch (IOException e) {
+                log.warn("画像削除エラー: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * サイズ違いの画像のパス（元画像と同じディレクトリ）
+     */
+    public static Path variantPath(Path original, Variant variant) {
+        String fileName = original.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = isPngOutput(original) ? "png" : "jpg";
+        return original.resolveSibling(stem + "." + variant.getSuffix() + "." + extension);
+    }
+
+    /**
+     * サイズ違いの画像のファイル名かどうか
+     */
+    public static boolean isVariantFile(Path file) {
+        String fileName = file.getFileName().toString();
+        for (Variant variant : Variant.values()) {
+            String marker = "." + variant.getSuffix() + ".";
+            if (fileName.endsWith(marker + "jpg") || fileName.endsWith(marker + "png")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 画像の幅・高さをヘッダーだけから読み取る（画素はデコードしない）
+     * ImageIO で読めない形式（WebP など）・ヘッダーが壊れている場合は null
+     */
+    public Dimension readDimensions(Path file) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = readerFor(in);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                reader.setInput(in, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("画像の寸法を読み取れませんでした ({}): {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 画素数が上限（app.images.max-pixels）以下かどうか
+     */
+    public boolean isWithinPixelLimit(int width, int height) {
+        return (long) width * height <= maxPixels;
+    }
+
+    public long getMaxPixels() {
+        return maxPixels;
+    }
+
+    /**
+     * 処理待ちの画像の数
+     */
+    public int getQueueDepth() {
+        return imageProcessingExecutor.getQueueSize();
+    }
+
+    // 透過を保持する必要がある形式は PNG、それ以外は JPEG で出力する
+    private static boolean isPngOutput(Path original) {
+        String name = original.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".png") || name.endsWith(".gif");
+    }
+
+    // 画像を読み込み、EXIF の向きを画素に反映する
+    // デコードする前にヘッダーの寸法を確認し、画素数が上限を超える画像は読み込まない（null）
+    // 最大のサイズ違いの画像より十分大きい画像は、画素を間引きながらデコードしてメモリの使用量を抑える
+    private BufferedImage readOriented(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            ImageReader reader = readerFor(in);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                reader.setInput(in, true, false);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (!isWithinPixelLimit(width, height)) {
+                    log.warn("画素数が上限を超えているため読み込みません ({}): {}x{}", original.getFileName(), width, height);
+                    return null;
+                }
+                int orientation = readOrientation(reader.getImageMetadata(0));
+                // 回転後の幅（サイズ違いの画像の幅と比べる値）
+                int orientedWidth = orientation >= 5 && orientation <= 8 ? height : width;
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, orientedWidth / (MAX_VARIANT_WIDTH * SUBSAMPLING_MARGIN));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                BufferedImage image = reader.read(0, param);
+                return applyOrientation(image, orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 画像形式に対応するリーダー。読めない形式の場合は null
+    private ImageReader readerFor(ImageInputStream in) {
+        if (in == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        return readers.hasNext() ? readers.next() : null;
+    }
+
+    // JPEG の APP1(EXIF) セグメントから Orientation を取り出す。見つからなければ 1（回転なし）
+    private int readOrientation(IIOMetadata metadata) {
+        if (metadata == null || !"javax_imageio_jpeg_image_1.0".equals(metadata.getNativeMetadataFormatName())) {
+            return 1;
+        }
+        Node root = metadata.getAsTree("javax_imageio_jpeg_image_1.0");
+        for (Node markers = root.getFirstChild(); markers != null; markers = markers.getNextSibling()) {
+            if (!"markerSequence".equals(markers.getNodeName())) {
+                continue;
+            }
+            for (Node marker = markers.getFirstChild(); marker != null; marker = marker.getNextSibling()) {
+                if (marker instanceof IIOMetadataNode node && "unknown".equals(node.getNodeName())
+                        && "225".equals(node.getAttribute("MarkerTag"))
+                        && node.getUserObject() instanceof byte[] data) {
+                    int orientation = parseExifOrientation(data);
+                    if (orientation > 0) {
+                        return orientation;
+                    }
+                }
+            }
+        }
+        return 1;
+    }
+
+    private int parseExifOrientation(byte[] data) {
+        // "Exif\0\0" + TIFF ヘッダー（バイトオーダー・42・IFD0 へのオフセット）
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f') {
+            return -1;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(data, 6, data.length - 6).slice();
+        tiff.order(data[6] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 0 || ifd + 2 > tiff.limit()) {
+            return -1;
+        }
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                break;
+            }
+            if ((tiff.getShort(entry) & 0xFFFF) == EXIF_ORIENTATION_TAG) {
+                return tiff.getShort(entry + 8) & 0xFFFF;
+            }
+        }
+        return -1;
+    }
+
+    // Orientation 値（1〜8）に従って回転・反転する
+    private BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform t = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { t.translate(w, 0); t.scale(-1, 1); }
+            case 3 -> { t.translate(w, h); t.rotate(Math.PI); }
+            case 4 -> { t.translate(0, h); t.scale(1, -1); }
+            case 5 -> { t.rotate(-Math.PI / 2); t.scale(-1, 1); }
+            case 6 -> { t.translate(h, 0); t.rotate(Math.PI / 2); }
+            case 7 -> { t.scale(-1, 1); t.translate(-h, 0); t.translate(0, w); t.rotate(3 * Math.PI / 2); }
+            case 8 -> { t.translate(0, w); t.rotate(3 * Math.PI / 2); }
+            default -> { }
+        }
+        BufferedImage rotated = new BufferedImage(swap ? h : w, swap ? w : h, outputType(image));
+        Graphics2D g = rotated.createGraphics();
+        try {
+            g.drawImage(image, t, null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+
+    // 指定幅以下に縮小する（拡大はしない）。大きく縮小する場合は半分ずつ縮めて画質の劣化を抑える
+    private BufferedImage resize(BufferedImage source, int maxWidth, boolean png) {
+        int type = png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        int targetWidth = Math.min(maxWidth, source.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = width == targetWidth ? targetHeight : Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (!png) {
+                    // JPEG は透過を持てないため白で塗りつぶしてから描画
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth);
+        return current;
+    }
+
+    // 一時ファイルに書き出してから置き換える（書きかけのファイルが配信されないように）
+    private void write(BufferedImage image, Path target, boolean png) throws IOException {
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            if (png) {
+                ImageIO.write(image, "png", temp.toFile());
+            } else {
+                writeJpeg(image, temp);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private int outputType(BufferedImage image) {
+        return image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.recipeapp.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 実行中・最近のジョブ（進捗確認用）
+ * 登録順に保持し、maxSize 件を超えたら古いものから捨てる。
+ */
+class JobHistory<J extends BackgroundJob> {
+
+    private final Map<String, J> jobs;
+
+    JobHistory(int maxSize) {
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, J> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    synchronized void add(J job) {
+        jobs.put(job.getId(), job);
+    }
+
+    /**
+     * 実行中・実行待ちのジョブがあればそれを返し、なければ job を登録して返す
+     */
+    synchronized J addIfIdle(J job) {
+        for (J existing : jobs.values()) {
+            if (!existing.isFinished()) {
+                return existing;
+            }
+        }
+        add(job);
+        return job;
+    }
+
+    synchronized J get(String id) {
+        return jobs.get(id);
+    }
+
+    synchronized List<J> list() {
+        return new ArrayList<>(jobs.values());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.RecipeSummary;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.Set;
+
+/**
+ * レシピカード（fragments/recipe_card）の描画結果のキャッシュ
+ * カードの内容はレシピのバージョンと画像の生成状況だけで決まるため、
+ * 「レシピID:バージョン:画像の世代」をキーにして描画済みの HTML を使い回す。
+ * テンプレートをキャッシュしない設定（開発時）ではテンプレートの変更をすぐ反映するため使わない。
+ */
+@Service
+public class RecipeCardRenderer {
+
+    public static final String CARD_CACHE = "recipeCards";
+
+    private static final String CARD_TEMPLATE = "fragments/recipe_card";
+    private static final Set<String> CARD_FRAGMENT = Set.of("card");
+
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Value("${spring.thymeleaf.cache:true}")
+    private boolean enabled;
+
+    private volatile JakartaServletWebApplication webApplication;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * レシピカードの HTML を返す（キャッシュにない場合は描画して登録する）
+     * 画面の描画中（リクエストの処理中）に呼び出すこと
+     */
+    public String render(RecipeSummary recipe) {
+        String key = recipe.getId() + ":" + recipe.getVersion() + ":" + imageVariantService.getGeneration();
+        Cache cache = cacheManager.getCache(CARD_CACHE);
+        if (cache == null) {
+            return process(recipe);
+        }
+        return cache.get(key, () -> process(recipe));
+    }
+
+    private String process(RecipeSummary recipe) {
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+
+        WebContext context = new WebContext(webApplication(request).buildExchange(request, response),
+                LocaleContextHolder.getLocale());
+        // テンプレート内の @imageStorageService などの Bean 参照を解決できるようにする
+        context.setVariable(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, null));
+        context.setVariable("recipe", recipe);
+        return templateEngine.process(CARD_TEMPLATE, CARD_FRAGMENT, context);
+    }
+
+    private JakartaServletWebApplication webApplication(HttpServletRequest request) {
+        JakartaServletWebApplication application = webApplication;
+        if (application == null) {
+            application = JakartaServletWebApplication.buildApplication(request.getServletContext());
+            webApplication = application;
+        }
+        return application;
+    }
+}
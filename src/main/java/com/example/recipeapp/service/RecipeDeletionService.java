@@ -0,0 +1,186 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * レシピの削除（1件・全件リセット・ID 指定の一括削除）
+ * エンティティを読み込まず、カテゴリ・レシピをそれぞれ1文の DELETE で削除する（ID 指定の場合は CHUNK_SIZE 件ごと）。
+ * 一括削除の画像ファイルの削除は ImageCleanupService のジョブに任せ、リクエストのスレッドでは待たない。
+ */
+@Service
+public class RecipeDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeDeletionService.class);
+
+    // 1トランザクション（1つの IN 句）で削除する件数
+    private static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private RecipeStatisticsService recipeStatisticsService;
+
+    @Autowired
+    private RecipeQueryService recipeQueryService;
+
+    @Autowired
+    private ImageCleanupService imageCleanupService;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    /**
+     * レシピを1件削除し、統計・検索インデックス・キャッシュ・画像に反映する
+     * 行をロックしてから読み取った状態（お気に入り・カテゴリ）で集計値を減らすため、削除までの間に
+     * お気に入りの切り替え・更新がコミットされても集計値はずれない。同じレシピを同時に削除しても1回分しか減らない。
+     * 削除した場合は true（存在しない・他のリクエストが先に削除した場合は false）
+     */
+    public boolean deleteById(Long id) {
+        List<RecipeRepository.RecipeDeletion> recipes = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        boolean deleted = recipeStatisticsService.update(() -> {
+            Integer count = new TransactionTemplate(transactionManager).execute(status -> {
+                recipes.addAll(recipeRepository.lockDeletionsByIds(List.of(id)));
+                if (recipes.isEmpty()) {
+                    return 0;
+                }
+                for (RecipeRepository.RecipeCategory rc : recipeRepository.findCategoriesByRecipeIds(List.of(id))) {
+                    categories.add(rc.getCategory());
+                }
+                return recipeRepository.deleteRecipeById(id);
+            });
+            if (count == null || count == 0) {
+                return false;
+            }
+            recipeStatisticsService.recipeRemoved(categories, recipes.get(0).isFavorite());
+            return true;
+        });
+        if (!deleted) {
+            return false;
+        }
+
+        RecipeRepository.RecipeDeletion recipe = recipes.get(0);
+        recipeSearchIndex.remove(id);
+        recipeQueryService.evictRecipe(id);
+        // 画像ファイルも削除（他のレシピが同じ画像を使っている場合は残す）
+        imageStorageService.release(recipe.getImagePath());
+        return true;
+    }
+
+    /**
+     * 全レシピを削除する
+     */
+    public DeletionResult deleteAll() {
+        long start = System.currentTimeMillis();
+        List<String> imagePaths = new ArrayList<>();
+        Integer deleted = new TransactionTemplate(transactionManager).execute(status -> {
+            imagePaths.addAll(recipeRepository.findDistinctImagePaths());
+            return recipeRepository.deleteAllRecipesInBatch();
+        });
+
+        recipeSearchIndex.clear();
+        recipeStatisticsService.rebuild();
+        recipeQueryService.evictAll();
+
+        ImageCleanupService.CleanupJob cleanup = imageCleanupService.cleanup(imagePaths);
+        log.info("全データがリセットされました。削除されたレシピ数: {} ({}ms)", deleted, System.currentTimeMillis() - start);
+        return new DeletionResult(deleted, cleanup);
+    }
+
+    /**
+     * 指定したレシピを削除する（存在しない ID は無視する）
+     */
+    public DeletionResult deleteByIds(Collection<Long> ids) {
+        long start = System.currentTimeMillis();
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinctIds.remove(null);
+
+        int deleted = 0;
+        Set<String> imagePaths = new HashSet<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < distinctIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + CHUNK_SIZE, distinctIds.size()));
+            List<RecipeRepository.RecipeDeletion> recipes = new ArrayList<>();
+            Map<Long, List<String>> categories = new HashMap<>();
+            // 読み取った行をロックしてから削除する（同時に削除された行を二重に集計から引かない）
+            recipeStatisticsService.update(() -> {
+                transaction.executeWithoutResult(status -> {
+                    recipes.addAll(recipeRepository.lockDeletionsByIds(chunk));
+                    if (recipes.isEmpty()) {
+                        return;
+                    }
+                    List<Long> lockedIds = recipes.stream().map(RecipeRepository.RecipeDeletion::getId).toList();
+                    for (RecipeRepository.RecipeCategory rc : recipeRepository.findCategoriesByRecipeIds(lockedIds)) {
+                        categories.computeIfAbsent(rc.getRecipeId(), id -> new ArrayList<>()).add(rc.getCategory());
+                    }
+                    int removed = recipeRepository.deleteRecipesByIdsInBatch(lockedIds);
+                    if (removed != lockedIds.size()) {
+                        throw new IllegalStateException("ロックしたレシピを削除できませんでした: " + removed + " / " + lockedIds.size());
+                    }
+                });
+                for (RecipeRepository.RecipeDeletion recipe : recipes) {
+                    recipeStatisticsService.recipeRemoved(categories.getOrDefault(recipe.getId(), List.of()), recipe.isFavorite());
+                }
+                return null;
+            });
+
+            for (RecipeRepository.RecipeDeletion recipe : recipes) {
+                recipeSearchIndex.remove(recipe.getId());
+                imagePaths.add(recipe.getImagePath());
+            }
+            deleted += recipes.size();
+        }
+        if (deleted > 0) {
+            recipeQueryService.evictAll();
+        }
+
+        ImageCleanupService.CleanupJob cleanup = imageCleanupService.cleanup(imagePaths);
+        log.info("レシピを一括削除しました。削除されたレシピ数: {} / 指定: {} ({}ms)",
+                deleted, distinctIds.size(), System.currentTimeMillis() - start);
+        return new DeletionResult(deleted, cleanup);
+    }
+
+    /**
+     * 一括削除の結果（画像の削除はジョブで続行中の場合がある）
+     */
+    public static class DeletionResult {
+
+        private final int deletedRecipes;
+        private final ImageCleanupService.CleanupJob imageCleanup;
+
+        DeletionResult(int deletedRecipes, ImageCleanupService.CleanupJob imageCleanup) {
+            this.deletedRecipes = deletedRecipes;
+            this.imageCleanup = imageCleanup;
+        }
+
+        public int getDeletedRecipes() {
+            return deletedRecipes;
+        }
+
+        public ImageCleanupService.CleanupJob getImageCleanup() {
+            return imageCleanup;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.repository.RecipeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * レシピデータのストリーミングエクスポート
+ * レシピを id 順に EXPORT_BATCH_SIZE 件ずつ読み込んでは書き出し、バッチごとに永続化コンテキストを破棄してフラッシュする。
+ * 一度に保持するのは1バッチ分のみのため、レシピ件数に関わらずメモリ使用量は一定。
+ */
+@Service
+public class RecipeExportService {
+
+    // 1回のクエリで読み込む件数（＝フラッシュ間隔）
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    // CSV を Excel で開いたときに文字化けしないよう先頭に付与する BOM
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private static final String[] CSV_COLUMNS = {
+            "id", "title", "ingredients", "instructions", "categories", "favorite", "reference", "imagePath"
+    };
+
+    /**
+     * 出力形式
+     */
+    public enum Format {
+        // JSON 配列（従来の /api/export と同じ形式）
+        JSON,
+        // 1行1レシピの JSON
+        NDJSON,
+        CSV
+    }
+
+    /**
+     * 画像の出力方法
+     */
+    public enum ImageMode {
+        // 画像のパスのみ出力
+        PATH,
+        // 画像を Base64 で埋め込む
+        INLINE
+    }
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    public void export(OutputStream out, Format format, ImageMode imageMode) throws IOException {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        if (format == Format.JSON) {
+            out.write('[');
+        } else if (format == Format.CSV) {
+            out.write(UTF8_BOM);
+            writeCsvHeader(out, imageMode);
+        }
+
+        boolean first = true;
+        long cursor = 0L;
+        int fetched;
+        do {
+            final long after = cursor;
+            List<Map<String, Object>> rows = readOnly.execute(status -> loadBatch(after));
+            fetched = rows.size();
+
+            for (Map<String, Object> row : rows) {
+                if (format == Format.JSON && !first) {
+                    out.write(',');
+                }
+                if (format == Format.CSV) {
+                    writeCsvRow(out, row, imageMode);
+                } else {
+                    writeJsonRow(out, row, imageMode);
+                    if (format == Format.NDJSON) {
+                        out.write('\n');
+                    }
+                }
+                first = false;
+                cursor = (Long) row.get("id");
+            }
+            out.flush();
+        } while (fetched == EXPORT_BATCH_SIZE);
+
+        if (format == Format.JSON) {
+            out.write(']');
+        }
+        out.flush();
+    }
+
+    // 1バッチ分のレシピを読み込み、出力用の Map に変換してからエンティティを切り離す
+    private List<Map<String, Object>> loadBatch(long afterId) {
+        List<Recipe> recipes = recipeRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(EXPORT_BATCH_SIZE));
+        if (recipes.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // カテゴリはレシピごとに読み込まず、バッチ単位で1回のクエリで取得
+        Map<Long, Set<String>> categoriesByRecipe = new HashMap<>();
+        List<Long> ids = recipes.stream().map(Recipe::getId).toList();
+        for (RecipeRepository.RecipeCategory rc : recipeRepository.findCategoriesByRecipeIds(ids)) {
+            categoriesByRecipe.computeIfAbsent(rc.getRecipeId(), id -> new TreeSet<>()).add(rc.getCategory());
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            rows.add(toRow(recipe, categoriesByRecipe.getOrDefault(recipe.getId(), new TreeSet<>())));
+        }
+
+        // 読み込んだエンティティを永続化コンテキストから切り離す
+        entityManager.clear();
+        return rows;
+    }
+
+    // エンティティを出力用の Map に変換する（JMH ベンチマークからも呼び出すためパッケージプライベート）
+    static Map<String, Object> toRow(Recipe recipe, Set<String> categories) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", recipe.getId());
+        row.put("title", recipe.getTitle());
+        row.put("ingredients", recipe.getIngredients());
+        row.put("instructions", recipe.getInstructions());
+        row.put("categories", categories);
+        row.put("favorite", recipe.isFavorite());
+        row.put("reference", recipe.getReference());
+        row.put("hasImage", recipe.getImagePath() != null);
+        row.put("imagePath", recipe.getImagePath());
+        return row;
+    }
+
+    void writeJsonRow(OutputStream out, Map<String, Object> row, ImageMode imageMode) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(row);
+        Path image = imageMode == ImageMode.INLINE ? imageStorageService.resolve((String) row.get("imagePath")) : null;
+        if (image == null) {
+            out.write(json);
+            return;
+        }
+
+        // 末尾の } の手前に画像を Base64 で書き出す（画像全体をメモリに載せない）
+        out.write(json, 0, json.length - 1);
+        out.write(",\"imageBase64\":\"".getBytes(StandardCharsets.UTF_8));
+        writeBase64(out, image);
+        out.write("\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeCsvHeader(OutputStream out, ImageMode imageMode) throws IOException {
+        StringBuilder header = new StringBuilder(String.join(",", CSV_COLUMNS));
+        if (imageMode == ImageMode.INLINE) {
+            header.append(",imageBase64");
+        }
+        header.append("\r\n");
+        out.write(header.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    void writeCsvRow(OutputStream out, Map<String, Object> row, ImageMode imageMode) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = row.get(CSV_COLUMNS[i]);
+            if (value instanceof Set) {
+                value = String.join("|", (Set<String>) value);
+            }
+            line.append(escapeCsv(value));
+        }
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+
+        if (imageMode == ImageMode.INLINE) {
+            out.write(',');
+            Path image = imageStorageService.resolve((String) row.get("imagePath"));
+            if (image != null) {
+                // Base64 の文字はエスケープ不要
+                writeBase64(out, image);
+            }
+        }
+        out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private void writeBase64(OutputStream out, Path image) throws IOException {
+        // Base64 エンコーダーを閉じても元のストリームは閉じないようにする
+        OutputStream nonClosing = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        try (OutputStream encoder = Base64.getEncoder().wrap(nonClosing)) {
+            Files.copy(image, encoder);
+        }
+    }
+}
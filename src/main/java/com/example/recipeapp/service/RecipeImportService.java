@@ -0,0 +1,552 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.Recipe;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * レシピの一括インポート（/api/export の逆）
+ * NDJSON / CSV を1行（1レコード）ずつ読みながらバリデーションし、CHUNK_SIZE 件ごとに
+ * 1トランザクションで JDBC バッチ INSERT する。
+ * Recipe.id は IDENTITY のため Hibernate ではバッチ化できないので、JDBC のバッチ実行で
+ * 生成されたキーをまとめて受け取り、カテゴリの INSERT に使う。
+ */
+@Service
+public class RecipeImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeImportService.class);
+
+    // 1トランザクションで登録する件数
+    private static final int CHUNK_SIZE = 1000;
+
+    // ジョブごとに保持するエラーメッセージの上限
+    private static final int MAX_ERRORS = 100;
+
+    // 保持するジョブ履歴の件数
+    private static final int MAX_JOB_HISTORY = 20;
+
+    // 各カラムの長さの上限（Recipe エンティティの定義に合わせる）
+    private static final int TITLE_MAX_LENGTH = 255;
+    private static final int INGREDIENTS_MAX_LENGTH = 1000;
+    private static final int INSTRUCTIONS_MAX_LENGTH = 2000;
+    private static final int REFERENCE_MAX_LENGTH = 1000;
+    private static final int CATEGORY_MAX_LENGTH = 50;
+
+    private static final String INSERT_RECIPE_SQL =
+            "INSERT INTO recipe (title, ingredients, instructions, favorite, reference, image_path) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CATEGORY_SQL =
+            "INSERT INTO recipe_category (recipe_id, category) VALUES (?, ?)";
+
+    /**
+     * 入力形式
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryValidator categoryValidator;
+
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private RecipeStatisticsService recipeStatisticsService;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private RecipeQueryService recipeQueryService;
+
+    // 実行中・最近のジョブ（進捗確認用）
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_JOB_HISTORY;
+        }
+    };
+
+    /**
+     * インポートを実行する（入力を最後まで読み終えるまで戻らない）
+     * 進捗は getJob / getJobs で別のリクエストから確認できる
+     */
+    public ImportJob importRecipes(InputStream in, Format format) {
+        ImportJob job = new ImportJob(format);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            skipBom(reader);
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            ImportRow row;
+            RecordReader records = format == Format.CSV ? new CsvRecordReader(reader) : new NdjsonRecordReader(reader);
+            while ((row = records.next(job)) != null) {
+                job.processed.incrementAndGet();
+                String error = validate(row);
+                if (error != null) {
+                    job.reject(row.line, error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    writeChunk(chunk, job);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, job);
+            }
+            job.finish(ImportJob.State.COMPLETED);
+        } catch (Exception e) {
+            log.error("インポートエラー - ジョブ: {}", job.getId(), e);
+            job.addError("インポートを中断しました: " + e.getMessage());
+            job.finish(ImportJob.State.FAILED);
+        }
+
+        log.info("インポート完了: {}件登録 / {}件スキップ ({}ms)",
+                job.getImported(), job.getRejected(), job.getElapsedMillis());
+        return job;
+    }
+
+    public ImportJob getJob(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    public List<ImportJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    // 1行分の入力をバリデーションし、エラーがあればメッセージを返す
+    private String validate(ImportRow row) {
+        if (row.title == null || row.title.trim().isEmpty()) {
+            return "タイトルは必須です。";
+        }
+        row.title = row.title.trim();
+        if (row.title.length() > TITLE_MAX_LENGTH) {
+            return "タイトルは" + TITLE_MAX_LENGTH + "文字以内で入力してください。";
+        }
+        if (row.ingredients != null && row.ingredients.length() > INGREDIENTS_MAX_LENGTH) {
+            return "材料は" + INGREDIENTS_MAX_LENGTH + "文字以内で入力してください。";
+        }
+        if (row.instructions != null && row.instructions.length() > INSTRUCTIONS_MAX_LENGTH) {
+            return "作り方は" + INSTRUCTIONS_MAX_LENGTH + "文字以内で入力してください。";
+        }
+        if (row.reference != null && row.reference.length() > REFERENCE_MAX_LENGTH) {
+            return "参考サイトは" + REFERENCE_MAX_LENGTH + "文字以内で入力してください。";
+        }
+
+        CategoryValidator.ValidationResult result = categoryValidator.validate(row.categories);
+        if (!result.isValid()) {
+            return result.getErrorMessage();
+        }
+        for (String category : result.getCategories()) {
+            if (category.length() > CATEGORY_MAX_LENGTH) {
+                return "カテゴリは" + CATEGORY_MAX_LENGTH + "文字以内で入力してください。";
+            }
+        }
+        row.categories = new ArrayList<>(result.getCategories());
+
+        // 保存済みの元画像への参照だけを正規化したパスで取り込む（フォームからの登録と同じ確認。存在しない画像・
+        // サイズ違いの画像・保存途中の一時ファイル・旧形式の画像は取り込まない）
+        if (row.imagePath != null && !row.imagePath.isBlank()) {
+            row.imagePath = imageStorageService.findStoredImage(row.imagePath);
+        } else {
+            row.imagePath = null;
+        }
+        return null;
+    }
+
+    // 1チャンク分を1トランザクションでバッチ登録し、コミット後に検索インデックス・統計・キャッシュに反映する
+    private void writeChunk(List<ImportRow> chunk, ImportJob job) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Long> ids = recipeStatisticsService.update(() -> insertChunk(transaction, chunk));
+
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportRow row = chunk.get(i);
+            Recipe recipe = new Recipe();
+            recipe.setId(ids.get(i));
+            recipe.setTitle(row.title);
+            recipe.setIngredients(row.ingredients);
+            recipe.setInstructions(row.instructions);
+            recipe.setFavorite(row.favorite);
+            recipe.getCategories().addAll(row.categories);
+            recipeSearchIndex.index(recipe);
+        }
+        recipeQueryService.evictLists();
+        job.imported.addAndGet(chunk.size());
+    }
+
+    // 1チャンク分を登録してコミットし、集計値に反映する。登録したレシピの ID を chunk の順に返す
+    private List<Long> insertChunk(TransactionTemplate transaction, List<ImportRow> chunk) {
+        List<Long> ids = transaction.execute(status -> {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(INSERT_RECIPE_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ImportRow row = chunk.get(i);
+                            ps.setString(1, row.title);
+                            ps.setString(2, row.ingredients != null ? row.ingredients : "");
+                            ps.setString(3, row.instructions != null ? row.instructions : "");
+                            ps.setBoolean(4, row.favorite);
+                            setNullableString(ps, 5, row.reference);
+                            setNullableString(ps, 6, row.imagePath);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keyHolder);
+
+            List<Long> generatedIds = new ArrayList<>(chunk.size());
+            for (Map<String, Object> keys : keyHolder.getKeyList()) {
+                generatedIds.add(((Number) keys.values().iterator().next()).longValue());
+            }
+
+            List<Object[]> categoryRows = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                for (String category : chunk.get(i).categories) {
+                    categoryRows.add(new Object[]{generatedIds.get(i), category});
+                }
+            }
+            if (!categoryRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_CATEGORY_SQL, categoryRows);
+            }
+            return generatedIds;
+        });
+        for (ImportRow row : chunk) {
+            recipeStatisticsService.recipeAdded(row.categories, row.favorite);
+        }
+        return ids;
+    }
+
+    private static void setNullableString(PreparedStatement ps, int index, String value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.VARCHAR);
+        } else {
+            ps.setString(index, value);
+        }
+    }
+
+    private static void skipBom(Reader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    private static List<String> splitCategories(String value) {
+        if (value == null || value.isBlank()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(value.split("\\|")));
+    }
+
+    /**
+     * 1レシピ分の入力
+     */
+    private static class ImportRow {
+        long line;
+        String title;
+        String ingredients;
+        String instructions;
+        boolean favorite;
+        String reference;
+        String imagePath;
+        List<String> categories = new ArrayList<>();
+    }
+
+    private interface RecordReader {
+        // 次のレコードを返す（入力の終わりでは null）。読み取れない行はジョブに記録して読み飛ばす
+        ImportRow next(ImportJob job) throws IOException;
+    }
+
+    /**
+     * NDJSON（1行1レシピの JSON）の読み込み
+     */
+    private class NdjsonRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private long lineNumber = 0;
+
+        NdjsonRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next(ImportJob job) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                ImportRow row = new ImportRow();
+                row.line = lineNumber;
+                try {
+                    JsonNode node = objectMapper.readTree(line);
+                    row.title = text(node, "title");
+                    row.ingredients = text(node, "ingredients");
+                    row.instructions = text(node, "instructions");
+                    row.favorite = node.path("favorite").asBoolean(false);
+                    row.reference = text(node, "reference");
+                    row.imagePath = text(node, "imagePath");
+                    JsonNode categories = node.path("categories");
+                    if (categories.isArray()) {
+                        categories.forEach(c -> row.categories.add(c.asText()));
+                    } else if (categories.isTextual()) {
+                        row.categories = splitCategories(categories.asText());
+                    }
+                } catch (IOException e) {
+                    job.processed.incrementAndGet();
+                    job.reject(lineNumber, "JSONとして読み取れません。");
+                    continue;
+                }
+                return row;
+            }
+            return null;
+        }
+
+        private String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+
+    /**
+     * CSV（/api/export?format=csv と同じ列構成）の読み込み
+     * ダブルクォートで囲まれたカンマ・改行を含む値に対応する
+     */
+    private static class CsvRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private Map<String, Integer> columns;
+        private long lineNumber = 0;
+
+        CsvRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next(ImportJob job) throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim(), i);
+                }
+            }
+
+            List<String> record;
+            while ((record = readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isEmpty()) {
+                    continue;
+                }
+                ImportRow row = new ImportRow();
+                row.line = lineNumber;
+                row.title = value(record, "title");
+                row.ingredients = value(record, "ingredients");
+                row.instructions = value(record, "instructions");
+                row.favorite = Boolean.parseBoolean(value(record, "favorite"));
+                row.reference = value(record, "reference");
+                row.imagePath = value(record, "imagePath");
+                row.categories = splitCategories(value(record, "categories"));
+                return row;
+            }
+            return null;
+        }
+
+        private String value(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index);
+            return value.isEmpty() ? null : value;
+        }
+
+        // 1レコードを読み込む（クォート内の改行はレコードの区切りとみなさない）
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        if (ch == '\n') {
+                            lineNumber++;
+                        }
+                        field.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\r') {
+                    // \r\n の \r は読み飛ばす
+                } else if (ch == '\n') {
+                    lineNumber++;
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append(ch);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            lineNumber++;
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * インポートジョブの進捗
+     */
+    public static class ImportJob {
+
+        public enum State {
+            RUNNING,
+            COMPLETED,
+            FAILED
+        }
+
+        private final String id = UUID.randomUUID().toString();
+        private final Format format;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile long finishedAt;
+        private volatile State state = State.RUNNING;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<String> errors = new ArrayList<>();
+
+        ImportJob(Format format) {
+            this.format = format;
+        }
+
+        void reject(long line, String message) {
+            rejected.incrementAndGet();
+            addError(line + "行目: " + message);
+        }
+
+        void addError(String message) {
+            synchronized (errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(message);
+                }
+            }
+        }
+
+        void finish(State state) {
+            this.finishedAt = System.currentTimeMillis();
+            this.state = state;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Format getFormat() {
+            return format;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getProcessed() {
+            return processed.get();
+        }
+
+        public long getImported() {
+            return imported.get();
+        }
+
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        public List<String> getErrors() {
+            synchronized (errors) {
+                return new ArrayList<>(errors);
+            }
+        }
+
+        public long getElapsedMillis() {
+            return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+
+        // 1秒あたりの処理件数
+        public long getRecordsPerSecond() {
+            long elapsed = Math.max(getElapsedMillis(), 1);
+            return processed.get() * 1000 / elapsed;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.model.RecipeField;
+import com.example.recipeapp.model.RecipeSummary;
+import com.example.recipeapp.repository.RecipeRepository;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 画面・API からのレシピの読み取り（キャッシュ付き）
+ * キャッシュにはエンティティではなくカテゴリまで読み込んだコピーを入れるため、セッションの外でも安全に参照できる。
+ * 更新系の処理は DB に反映した後で evictRecipe / evictLists / evictAll を呼び出してキャッシュを破棄すること。
+ * 破棄する前にデータのバージョン（画面の ETag）を進め、読み込み中にバージョンが変わった結果はキャッシュに入れない
+ * （更新のコミット前に読んだ行が、破棄の後でキャッシュに入るのを防ぐ）。
+ */
+@Service
+public class RecipeQueryService {
+
+    // レシピ1件（キー: レシピID）
+    public static final String RECIPE_CACHE = "recipe";
+
+    // ホーム・お気に入り・カテゴリ別の1ページ分（キー: 種類・カーソル・件数）
+    public static final String PAGE_CACHE = "recipePages";
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // レシピが更新されるたびに進める値（画面の ETag に使う）
+    // 再起動の前後で同じ値にならないよう起動時刻から始める
+    private final AtomicLong dataVersion = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * レシピを1件取得する。存在しない場合は null
+     */
+    public Recipe findRecipe(Long id) {
+        return cached(RECIPE_CACHE, id, () -> readOnly().execute(status ->
+                recipeRepository.findById(id).map(this::detach).orElse(null)));
+    }
+
+    /**
+     * id が afterId より後のレシピを limit 件まで取得する（カテゴリ設定済み）
+     */
+    public List<RecipeSummary> findSummaries(long afterId, int limit) {
+        return cached(PAGE_CACHE, "all:" + afterId + ":" + limit, () -> readOnly().execute(status ->
+                attachCategories(recipeRepository.findSummariesAfter(afterId, Limit.of(limit)))));
+    }
+
+    public List<RecipeSummary> findFavoriteSummaries(long afterId, int limit) {
+        return cached(PAGE_CACHE, "favorite:" + afterId + ":" + limit, () -> readOnly().execute(status ->
+                attachCategories(recipeRepository.findFavoriteSummariesAfter(afterId, Limit.of(limit)))));
+    }
+
+    public List<RecipeSummary> findNonFavoriteSummaries(long afterId, int limit) {
+        return cached(PAGE_CACHE, "nonFavorite:" + afterId + ":" + limit, () -> readOnly().execute(status ->
+                attachCategories(recipeRepository.findNonFavoriteSummariesAfter(afterId, Limit.of(limit)))));
+    }
+
+    /**
+     * page 番目（0 始まり）のページのレシピを取得する（カテゴリ設定済み。favorite が null なら全件）
+     * 一覧と同じ id 順で、カーソルを持たないクライアント向け。DB が前のページの行を読み飛ばす。
+     */
+    public List<RecipeSummary> findSummaryPage(Boolean favorite, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size);
+        return cached(PAGE_CACHE, "page:" + favorite + ":" + page + ":" + size, () -> readOnly().execute(status ->
+                attachCategories(favorite == null
+                        ? recipeRepository.findSummaryPage(pageable)
+                        : recipeRepository.findSummaryPageByFavorite(favorite, pageable))));
+    }
+
+    public List<RecipeSummary> findCategorySummaries(String category, long afterId, int limit) {
+        return cached(PAGE_CACHE, "category:" + category + ":" + afterId + ":" + limit, () -> readOnly().execute(status ->
+                attachCategories(recipeRepository.findCategorySummariesAfter(category, afterId, Limit.of(limit)))));
+    }
+
+    /**
+     * 指定した順序でレシピを取得する（存在しないIDは除く）
+     * キャッシュにないレシピだけを1回のクエリでまとめて読み込む。
+     */
+    public List<Recipe> findAllById(List<Long> ids) {
+        Cache cache = cacheManager.getCache(RECIPE_CACHE);
+        Map<Long, Recipe> recipesById = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Recipe cached = cache.get(id, Recipe.class);
+            if (cached != null) {
+                recipesById.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long version = dataVersion.get();
+            List<Recipe> loaded = readOnly().execute(status -> recipeRepository.findAllById(missing).stream()
+                    .map(this::detach)
+                    .toList());
+            for (Recipe recipe : loaded) {
+                cache.put(recipe.getId(), recipe);
+                recipesById.put(recipe.getId(), recipe);
+            }
+            if (dataVersion.get() != version) {
+                // 読み込み中に更新された。古い内容の可能性があるため入れたものを破棄する
+                loaded.forEach(recipe -> cache.evict(recipe.getId()));
+            }
+        }
+
+        List<Recipe> recipes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Recipe recipe = recipesById.get(id);
+            if (recipe != null) {
+                recipes.add(recipe);
+            }
+        }
+        return recipes;
+    }
+
+    /**
+     * 指定した順序で、レシピの指定した項目だけを取得する（存在しないIDは除く）
+     * summary の項目だけの場合、キャッシュにないレシピは RecipeSummary として読み込む（材料・作り方などの長いテキスト列は読まない）。
+     * それ以外の項目を含む場合は findAllById で読み込む。
+     */
+    public List<Map<String, Object>> findFieldsById(List<Long> ids, Set<RecipeField> fields) {
+        if (!RecipeField.isSummaryOnly(fields)) {
+            return findAllById(ids).stream()
+                    .map(recipe -> selectFields(fields, field -> field.valueOf(recipe)))
+                    .toList();
+        }
+
+        Cache cache = cacheManager.getCache(RECIPE_CACHE);
+        Map<Long, Map<String, Object>> rowsById = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Recipe cached = cache.get(id, Recipe.class);
+            if (cached != null) {
+                rowsById.put(id, selectFields(fields, field -> field.valueOf(cached)));
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // 一部の列だけのため、レシピのキャッシュには入れない
+            List<RecipeSummary> loaded = readOnly().execute(status -> {
+                List<RecipeSummary> summaries = recipeRepository.findSummariesByIds(missing);
+                return fields.contains(RecipeField.CATEGORIES) ? attachCategories(summaries) : summaries;
+            });
+            for (RecipeSummary summary : loaded) {
+                rowsById.put(summary.getId(), selectFields(fields, field -> field.valueOf(summary)));
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Map<String, Object> row = rowsById.get(id);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 一覧のページ（findSummaries など）のレシピから、指定した項目だけを取得する
+     * summary の項目だけの場合は読み込み済みの RecipeSummary から作り、それ以外の項目を含む場合は findFieldsById で読み込む。
+     */
+    public List<Map<String, Object>> findFieldsOf(List<RecipeSummary> summaries, Set<RecipeField> fields) {
+        if (!RecipeField.isSummaryOnly(fields)) {
+            return findFieldsById(summaries.stream().map(RecipeSummary::getId).toList(), fields);
+        }
+        return summaries.stream()
+                .map(summary -> selectFields(fields, field -> field.valueOf(summary)))
+                .toList();
+    }
+
+    /**
+     * レシピの更新・削除・お気に入り切り替え後に呼び出す
+     */
+    public void evictRecipe(Long id) {
+        dataVersion.incrementAndGet();
+        cacheManager.getCache(RECIPE_CACHE).evict(id);
+        cacheManager.getCache(PAGE_CACHE).clear();
+    }
+
+    /**
+     * レシピの追加後に呼び出す（既存のレシピ1件分のキャッシュはそのまま使える）
+     */
+    public void evictLists() {
+        dataVersion.incrementAndGet();
+        cacheManager.getCache(PAGE_CACHE).clear();
+    }
+
+    /**
+     * 全件削除など、どのレシピが変わったか特定できない更新の後に呼び出す
+     */
+    public void evictAll() {
+        dataVersion.incrementAndGet();
+        cacheManager.getCache(RECIPE_CACHE).clear();
+        cacheManager.getCache(PAGE_CACHE).clear();
+    }
+
+    /**
+     * レシピのデータのバージョン（追加・更新・削除のたびに変わる）
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * キャッシュごとのヒット数・ミス数など
+     */
+    public Map<String, Map<String, Object>> getCacheStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        for (String name : List.of(RECIPE_CACHE, PAGE_CACHE, RecipeCardRenderer.CARD_CACHE, CustomUserDetailsService.USER_CACHE)) {
+            if (!(cacheManager.getCache(name) instanceof CaffeineCache cache)) {
+                continue;
+            }
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = cache.getNativeCache();
+            CacheStats stats = nativeCache.stats();
+
+            Policy.Eviction<Object, Object> eviction = nativeCache.policy().eviction().orElse(null);
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("size", nativeCache.estimatedSize());
+            values.put("weightedSize", eviction != null && eviction.weightedSize().isPresent()
+                    ? eviction.weightedSize().getAsLong() : null);
+            values.put("maximumWeight", eviction != null ? eviction.getMaximum() : null);
+            values.put("hitCount", stats.hitCount());
+            values.put("missCount", stats.missCount());
+            values.put("hitRate", stats.hitRate());
+            values.put("evictionCount", stats.evictionCount());
+            statistics.put(name, values);
+        }
+        return statistics;
+    }
+
+    // キャッシュになければ読み込んで入れる（null は入れない）
+    // 読み込みの前後でデータのバージョンが変わった場合は、更新前の行を読んだ可能性があるため入れたものを破棄する。
+    // 更新側はバージョンを進めてから破棄するため、どちらの順で起きても古い内容はキャッシュに残らない。
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String cacheName, Object key, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper hit = cache.get(key);
+        if (hit != null) {
+            return (T) hit.get();
+        }
+        long version = dataVersion.get();
+        T value = loader.get();
+        if (value != null) {
+            cache.put(key, value);
+            if (dataVersion.get() != version) {
+                cache.evict(key);
+            }
+        }
+        return value;
+    }
+
+    // 指定した項目だけを項目の定義順に並べる
+    private Map<String, Object> selectFields(Set<RecipeField> fields, Function<RecipeField, Object> value) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (RecipeField field : fields) {
+            row.put(field.getName(), value.apply(field));
+        }
+        return row;
+    }
+
+    // カテゴリまで読み込んだ、永続化コンテキストに属さないコピーを作る
+    private Recipe detach(Recipe recipe) {
+        Recipe copy = new Recipe();
+        copy.setId(recipe.getId());
+        copy.setTitle(recipe.getTitle());
+        copy.setIngredients(recipe.getIngredients());
+        copy.setInstructions(recipe.getInstructions());
+        copy.setFavorite(recipe.isFavorite());
+        copy.setReference(recipe.getReference());
+        copy.setImagePath(recipe.getImagePath());
+        copy.setVersion(recipe.getVersion());
+        copy.setCategories(new HashSet<>(recipe.getCategories()));
+        return copy;
+    }
+
+    // 表示するレシピのカテゴリを1回のクエリでまとめて設定する
+    private List<RecipeSummary> attachCategories(List<RecipeSummary> recipes) {
+        if (recipes.isEmpty()) {
+            return recipes;
+        }
+        Map<Long, RecipeSummary> recipesById = new HashMap<>();
+        for (RecipeSummary recipe : recipes) {
+            recipesById.put(recipe.getId(), recipe);
+        }
+        for (RecipeRepository.RecipeCategory rc : recipeRepository.findCategoriesByRecipeIds(recipesById.keySet())) {
+            recipesById.get(rc.getRecipeId()).getCategories().add(rc.getCategory());
+        }
+        return recipes;
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.repository.RecipeRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * レシピの全文検索用インメモリ転置インデックス
+ * タイトル・材料・作り方・カテゴリをトークン化して保持し、
+ * レシピの登録・更新・削除のたびに差分で更新する。
+ * 検索コストはテーブル全体ではなく、クエリに一致したトークンのポスティング数に比例する。
+ */
+@Service
+public class RecipeSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeSearchIndex.class);
+
+    // 起動時にインデックスを構築する際の1回あたりの読み込み件数
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /**
+     * インデックス対象のフィールドとスコアの重み
+     */
+    public enum Field {
+        TITLE(3.0),
+        INGREDIENTS(2.0),
+        INSTRUCTIONS(1.0),
+        CATEGORY(2.0);
+
+        private final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    // キーワード検索（q）で対象にするフィールド
+    private static final Set<Field> ALL_FIELDS = Set.of(Field.values());
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // トークン → (レシピID → フィールドごとの出現回数)。前方一致検索のためソート済みで保持
+    private final TreeMap<String, Map<Long, int[]>> postings = new TreeMap<>();
+
+    // 日本語のバイグラムを逆順にした文字列（1文字のクエリで、その文字で終わるバイグラムを探すため）
+    // トークンの種類ごとに1つだけ持つ（レシピごとには持たない）
+    private final TreeSet<String> reversedBigrams = new TreeSet<>();
+
+    // レシピID → 登録済みトークン（削除・更新時に使用）
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+
+    // レシピID → お気に入りフラグ（お気に入り絞り込み用）
+    private final Map<Long, Boolean> favorites = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 起動時に既存のレシピからインデックスを構築する
+     * カテゴリは遅延読み込みのため、読み取り専用トランザクション内でバッチごとに読み込む
+     */
+    @PostConstruct
+    public void rebuild() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        lock.writeLock().lock();
+        try {
+            clearInternal();
+            long cursor = 0L;
+            List<Recipe> batch;
+            do {
+                final long after = cursor;
+                batch = readOnly.execute(status -> {
+                    List<Recipe> recipes = recipeRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(REBUILD_BATCH_SIZE));
+                    recipes.forEach(this::indexInternal);
+                    return recipes;
+                });
+                if (!batch.isEmpty()) {
+                    cursor = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("検索インデックスを構築しました。レシピ数: {}", size());
+    }
+
+    /**
+     * レシピを登録（既に登録済みの場合は置き換え）
+     */
+    public void index(Recipe recipe) {
+        if (recipe == null || recipe.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(recipe.getId());
+            indexInternal(recipe);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateFavorite(Long id, boolean favorite) {
+        lock.writeLock().lock();
+        try {
+            if (favorites.containsKey(id)) {
+                favorites.put(id, favorite);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            clearInternal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return favorites.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 検索を実行し、スコア順（同点はID順）に並べた1ページ分のレシピIDを返す
+     * すべての条件を満たすレシピのみが対象（AND検索）
+     * テキスト条件がない場合は全件を並べ替えるため、/api/search はその場合にこのメソッドを使わず DB から一覧を返す。
+     *
+     * @param keyword    タイトル・材料・作り方・カテゴリのいずれかに含まれる語
+     * @param title      タイトルに含まれる語
+     * @param ingredient 材料に含まれる語
+     * @param category   カテゴリに含まれる語
+     * @param favorite   お気に入りで絞り込む場合に指定
+     */
+    public SearchResult search(String keyword, String title, String ingredient, String category,
+                               Boolean favorite, int page, int size) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            scores = applyCriterion(scores, keyword, ALL_FIELDS);
+            scores = applyCriterion(scores, title, Set.of(Field.TITLE));
+            scores = applyCriterion(scores, ingredient, Set.of(Field.INGREDIENTS));
+            scores = applyCriterion(scores, category, Set.of(Field.CATEGORY));
+
+            // テキスト条件がない場合は全件が対象
+            if (scores == null) {
+                scores = new HashMap<>();
+                for (Long id : favorites.keySet()) {
+                    scores.put(id, 0.0);
+                }
+            }
+
+            if (favorite != null) {
+                scores.keySet().removeIf(id -> !favorite.equals(favorites.get(id)));
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            int from = Math.min(page * size, ranked.size());
+            int to = Math.min(from + size, ranked.size());
+            List<Long> ids = new ArrayList<>(to - from);
+            for (Map.Entry<Long, Double> entry : ranked.subList(from, to)) {
+                ids.add(entry.getKey());
+            }
+            return new SearchResult(ids, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 1つの検索条件を適用し、これまでの候補との積集合を返す（条件が空なら候補をそのまま返す）
+    private Map<Long, Double> applyCriterion(Map<Long, Double> current, String text, Set<Field> fields) {
+        if (text == null || text.trim().isEmpty()) {
+            return current;
+        }
+        List<String> tokens = SearchTokenizer.tokenize(text);
+        if (tokens.isEmpty()) {
+            return current;
+        }
+
+        // 各トークンに一致するレシピを求め、件数の少ないものから積集合を取る
+        List<Map<Long, Double>> matches = new ArrayList<>();
+        for (String token : new HashSet<>(tokens)) {
+            Map<Long, Double> match = matchToken(token, fields);
+            if (match.isEmpty()) {
+                return new HashMap<>();
+            }
+            matches.add(match);
+        }
+        if (current != null) {
+            matches.add(current);
+        }
+        matches.sort(Comparator.comparingInt(Map::size));
+
+        Map<Long, Double> result = new HashMap<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            Map<Long, Double> other = matches.get(i);
+            result.entrySet().removeIf(entry -> !other.containsKey(entry.getKey()));
+            result.replaceAll((id, score) -> score + other.get(id));
+        }
+        return result;
+    }
+
+    // トークンに一致するレシピとスコア（TF-IDF × フィールドの重み）を求める
+    private Map<Long, Double> matchToken(String token, Set<Field> fields) {
+        Map<String, Map<Long, int[]>> candidates;
+        if (SearchTokenizer.isWordToken(token)) {
+            // 英単語は前方一致（例: "cur" → "curry"）
+            candidates = postings.subMap(token, true, token + Character.MAX_VALUE, true);
+        } else if (token.codePointCount(0, token.length()) == 1) {
+            // 1文字の日本語はその文字を含むバイグラム（前方一致と後方一致。例: 「豆」→「豆腐」、「腐」→「豆腐」）
+            candidates = new HashMap<>(postings.subMap(token, true, token + Character.MAX_VALUE, true));
+            for (String reversed : reversedBigrams.subSet(token, true, token + Character.MAX_VALUE, true)) {
+                String bigram = reverse(reversed);
+                candidates.put(bigram, postings.get(bigram));
+            }
+        } else {
+            Map<Long, int[]> exact = postings.get(token);
+            candidates = exact != null ? Map.of(token, exact) : Collections.emptyMap();
+        }
+
+        int documentCount = Math.max(favorites.size(), 1);
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map<Long, int[]> posting : candidates.values()) {
+            double idf = Math.log(1.0 + (double) documentCount / posting.size());
+            for (Map.Entry<Long, int[]> entry : posting.entrySet()) {
+                double weighted = 0.0;
+                for (Field field : fields) {
+                    weighted += entry.getValue()[field.ordinal()] * field.weight;
+                }
+                if (weighted > 0) {
+                    // 前方一致で複数の語に一致した場合は最もスコアの高いものを採用
+                    scores.merge(entry.getKey(), weighted * idf, Math::max);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void indexInternal(Recipe recipe) {
+        Long id = recipe.getId();
+        Set<String> terms = new HashSet<>();
+        addField(id, Field.TITLE, recipe.getTitle(), terms);
+        addField(id, Field.INGREDIENTS, recipe.getIngredients(), terms);
+        addField(id, Field.INSTRUCTIONS, recipe.getInstructions(), terms);
+        if (recipe.getCategories() != null) {
+            for (String category : recipe.getCategories()) {
+                addField(id, Field.CATEGORY, category, terms);
+            }
+        }
+        documentTerms.put(id, terms);
+        favorites.put(id, recipe.isFavorite());
+    }
+
+    private void addField(Long id, Field field, String text, Set<String> terms) {
+        for (String token : SearchTokenizer.tokenize(text)) {
+            int[] counts = postings.computeIfAbsent(token, this::newPosting)
+                    .computeIfAbsent(id, i -> new int[Field.values().length]);
+            counts[field.ordinal()]++;
+            terms.add(token);
+        }
+    }
+
+    private void removeInternal(Long id) {
+        Set<String> terms = documentTerms.remove(id);
+        if (terms != null) {
+            for (String term : terms) {
+                Map<Long, int[]> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                        reversedBigrams.remove(reverse(term));
+                    }
+                }
+            }
+        }
+        favorites.remove(id);
+    }
+
+    // 新しいトークンのポスティングを作る（日本語のバイグラムは逆順の文字列も登録する）
+    private Map<Long, int[]> newPosting(String token) {
+        if (!SearchTokenizer.isWordToken(token) && token.codePointCount(0, token.length()) == 2) {
+            reversedBigrams.add(reverse(token));
+        }
+        return new HashMap<>();
+    }
+
+    private static String reverse(String token) {
+        return new StringBuilder(token).reverse().toString();
+    }
+
+    private void clearInternal() {
+        postings.clear();
+        reversedBigrams.clear();
+        documentTerms.clear();
+        favorites.clear();
+    }
+
+    /**
+     * 検索結果（1ページ分のレシピIDと該当件数）
+     */
+    public static class SearchResult {
+        private final List<Long> ids;
+        private final int total;
+
+        public SearchResult(List<Long> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
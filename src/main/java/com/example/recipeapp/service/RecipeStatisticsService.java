@@ -0,0 +1,147 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.repository.RecipeRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * レシピ数・お気に入り数・カテゴリ別レシピ数の集計値をメモリ上で保持するサービス
+ * 起動時に1度だけ集計クエリで初期化し、以降は登録・更新・削除・お気に入り切り替えのたびに差分で更新する。
+ * 統計APIはレシピテーブルを参照せず、カテゴリ数に比例するコストで応答できる。
+ * DB への変更と差分の反映は update の中で行う（rebuild の集計クエリと排他し、同じ変更を二重に数えないため）。
+ */
+@Service
+public class RecipeStatisticsService {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    private final LongAdder totalRecipes = new LongAdder();
+
+    private final LongAdder favoriteRecipes = new LongAdder();
+
+    private final ConcurrentHashMap<String, LongAdder> categoryCounts = new ConcurrentHashMap<>();
+
+    // 書き込み（update）は共有ロック、作り直し（rebuild）は排他ロックを取る
+    // 集計クエリの実行中も仮想スレッドがキャリアスレッドを占有しないよう synchronized ではなくロックで排他する
+    private final ReentrantReadWriteLock updateLock = new ReentrantReadWriteLock();
+
+    /**
+     * DBの内容から集計値を作り直す
+     * 実行中の update（コミット済みで差分が未反映の変更）がなくなるのを待ってから集計するため、
+     * 集計クエリが数えた変更の差分が後から重ねて反映されることはない。update の中から呼び出さないこと。
+     */
+    @PostConstruct
+    public void rebuild() {
+        updateLock.writeLock().lock();
+        try {
+            reset();
+            totalRecipes.add(recipeRepository.count());
+            favoriteRecipes.add(recipeRepository.countByFavoriteTrue());
+            for (RecipeRepository.CategoryCount cc : recipeRepository.countRecipesByCategory()) {
+                counter(cc.getCategory()).add(cc.getCount());
+            }
+        } finally {
+            updateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * DB への変更（コミットまで）と、その差分を集計値に反映する処理（recipeAdded など）をまとめて実行する
+     * 書き込み同士は同時に実行でき、rebuild とだけ排他する。
+     */
+    public <T> T update(Supplier<T> change) {
+        updateLock.readLock().lock();
+        try {
+            return change.get();
+        } finally {
+            updateLock.readLock().unlock();
+        }
+    }
+
+    public void recipeAdded(Collection<String> categories, boolean favorite) {
+        totalRecipes.increment();
+        if (favorite) {
+            favoriteRecipes.increment();
+        }
+        adjustCategories(categories, 1);
+    }
+
+    public void recipeRemoved(Collection<String> categories, boolean favorite) {
+        totalRecipes.decrement();
+        if (favorite) {
+            favoriteRecipes.decrement();
+        }
+        adjustCategories(categories, -1);
+    }
+
+    public void recipeUpdated(Collection<String> oldCategories, boolean oldFavorite,
+                              Collection<String> newCategories, boolean newFavorite) {
+        adjustCategories(oldCategories, -1);
+        adjustCategories(newCategories, 1);
+        if (oldFavorite != newFavorite) {
+            favoriteChanged(newFavorite);
+        }
+    }
+
+    public void favoriteChanged(boolean favorite) {
+        if (favorite) {
+            favoriteRecipes.increment();
+        } else {
+            favoriteRecipes.decrement();
+        }
+    }
+
+    public void reset() {
+        totalRecipes.reset();
+        favoriteRecipes.reset();
+        categoryCounts.clear();
+    }
+
+    public long getTotalRecipes() {
+        return totalRecipes.sum();
+    }
+
+    public long getFavoriteRecipes() {
+        return favoriteRecipes.sum();
+    }
+
+    public long getCategoryCount(String category) {
+        LongAdder count = categoryCounts.get(category);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * カテゴリ別レシピ数のスナップショット（0件のカテゴリは含まない）
+     */
+    public Map<String, Long> getCategoryCounts() {
+        Map<String, Long> snapshot = new HashMap<>();
+        categoryCounts.forEach((category, count) -> {
+            long value = count.sum();
+            if (value > 0) {
+                snapshot.put(category, value);
+            }
+        });
+        return snapshot;
+    }
+
+    private void adjustCategories(Collection<String> categories, int delta) {
+        for (String category : categories != null ? categories : Collections.<String>emptySet()) {
+            counter(category).add(delta);
+        }
+    }
+
+    private LongAdder counter(String category) {
+        return categoryCounts.computeIfAbsent(category, c -> new LongAdder());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.recipeapp.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 検索インデックス用のトークナイザー
+ * - NFKC正規化・小文字化・カタカナ→ひらがな変換（home.html の normalizeText と同じ正規化）
+ * - 英数字は単語単位、日本語（漢字・ひらがな・カタカナ）は2文字ずつのバイグラムに分割
+ *   例: 「麻婆豆腐」→「麻婆」「婆豆」「豆腐」
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String normalized = normalize(text);
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjkRun = new StringBuilder();
+
+        normalized.codePoints().forEach(cp -> {
+            if (isCjk(cp)) {
+                flushWord(word, tokens);
+                cjkRun.appendCodePoint(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjkRun, tokens);
+                word.appendCodePoint(cp);
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjkRun, tokens);
+            }
+        });
+        flushWord(word, tokens);
+        flushCjk(cjkRun, tokens);
+
+        return tokens;
+    }
+
+    /**
+     * 英数字のトークンか（クエリ側では前方一致で検索する）
+     */
+    public static boolean isWordToken(String token) {
+        return !token.isEmpty() && !isCjk(token.codePointAt(0));
+    }
+
+    static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            // カタカナ（ァ〜ヶ）をひらがなに変換
+            if (c >= 'ァ' && c <= 'ヶ') {
+                sb.append((char) (c - 0x60));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isCjk(int cp) {
+        // 長音記号「ー」は Unicode 上 COMMON だが、カタカナ語の一部として扱う
+        if (cp == 'ー') {
+            return true;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(StringBuilder run, List<String> tokens) {
+        if (run.length() == 0) {
+            return;
+        }
+        int[] cps = run.codePoints().toArray();
+        if (cps.length == 1) {
+            // 1文字だけの場合はそのまま1トークンにする
+            tokens.add(new String(cps, 0, 1));
+        } else {
+            for (int i = 0; i + 1 < cps.length; i++) {
+                tokens.add(new String(cps, i, 2));
+            }
+        }
+        run.setLength(0);
+    }
+}
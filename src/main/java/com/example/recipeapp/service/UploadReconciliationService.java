@@ -0,0 +1,469 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * アップロード画像の整合性チェック（uploads/ と Recipe.imagePath の突き合わせ）
+ * レシピの更新・削除の途中での失敗や、アプリの外での行の削除で残った画像ファイルを見つけて後始末する。
+ * <ul>
+ *   <li>どのレシピからも参照されていない画像は uploads-quarantine/ に隔離し、保持期間を過ぎたら削除する</li>
+ *   <li>参照されているのにファイルがない画像は、隔離済みなら元に戻し、なければ missing として報告する</li>
+ *   <li>元画像のないサイズ違いの画像と、保存が中断された一時ファイルは削除する</li>
+ * </ul>
+ * ディレクトリ（ab/）ごとに uploadScanExecutor で並列に読み、ディレクトリの読み込みとファイル操作は
+ * max-operations-per-second 回/秒までに抑える（画面の表示とディスクの I/O を取り合わないように）。
+ * ジョブは imageCleanupExecutor（1スレッド）で実行するため、一括削除の後始末とは同時に動かない。
+ */
+@Service
+public class UploadReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadReconciliationService.class);
+
+    // 保持するジョブ履歴の件数
+    private static final int MAX_JOB_HISTORY = 20;
+
+    // ジョブの結果に含める missing の画像パスの件数（件数自体はすべて数える）
+    private static final int MAX_REPORTED_MISSING = 100;
+
+    // 参照の再確認を1回のクエリで行う件数
+    private static final int BATCH_SIZE = 200;
+
+    // この時間より古い一時ファイルは保存が中断されたものとみなして削除する
+    private static final Duration STALE_TEMP_AGE = Duration.ofHours(1);
+
+    // 振り分け用のディレクトリ名（ab/cd/）
+    private static final Pattern SHARD_DIRECTORY = Pattern.compile("[0-9a-f]{2}");
+
+    private static final Pattern TEMP_FILE = Pattern.compile("\\.upload-.+\\.tmp");
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("imageCleanupExecutor")
+    private ThreadPoolTaskExecutor imageCleanupExecutor;
+
+    @Autowired
+    @Qualifier("uploadScanExecutor")
+    private ThreadPoolTaskExecutor uploadScanExecutor;
+
+    @Value("${app.uploads.reconcile.max-operations-per-second:200}")
+    private int maxOperationsPerSecond;
+
+    @Value("${app.uploads.reconcile.quarantine-retention:7d}")
+    private Duration quarantineRetention;
+
+    private final JobHistory<ReconciliationJob> jobs = new JobHistory<>(MAX_JOB_HISTORY);
+
+    // 最後に完了したジョブで見つかった missing の件数（メトリクス用）
+    private final AtomicLong lastMissingImages = new AtomicLong();
+
+    @Scheduled(cron = "${app.uploads.reconcile.cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * 整合性チェックをジョブとして登録する（呼び出し元は完了を待たない）
+     * 実行中・実行待ちのジョブがある場合は新しく登録せず、そのジョブを返す。
+     */
+    public ReconciliationJob reconcile() {
+        ReconciliationJob created = new ReconciliationJob();
+        ReconciliationJob job = jobs.addIfIdle(created);
+        if (job != created) {
+            return job;
+        }
+
+        try {
+            imageCleanupExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            log.warn("整合性チェックのジョブを登録できませんでした - ジョブ: {}", job.getId());
+            job.fail("画像削除のジョブが多すぎるため実行できませんでした");
+        }
+        return job;
+    }
+
+    public ReconciliationJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public List<ReconciliationJob> getJobs() {
+        return jobs.list();
+    }
+
+    /**
+     * 最後に完了した整合性チェックで見つかった、参照されているのにファイルがない画像の数
+     */
+    public long getLastMissingImages() {
+        return lastMissingImages.get();
+    }
+
+    private void run(ReconciliationJob job) {
+        job.start();
+        OperationLimiter limiter = new OperationLimiter(maxOperationsPerSecond);
+        try {
+            Set<String> referenced = loadReferencedImagePaths();
+            job.referencedImages = referenced.size();
+
+            // 見つかった画像を除いていき、最後に残ったものが missing の候補
+            Set<String> unseen = ConcurrentHashMap.newKeySet(referenced.size());
+            unseen.addAll(referenced);
+            List<ShardScan> scans = scan(referenced, unseen, limiter, job);
+
+            restoreOrReportMissing(unseen, limiter, job);
+            for (ShardScan scan : scans) {
+                for (Path orphan : scan.orphans()) {
+                    limiter.acquire();
+                    if (imageStorageService.quarantine(orphan)) {
+                        job.quarantined.incrementAndGet();
+                    }
+                }
+                for (Path variant : scan.orphanVariants()) {
+                    limiter.acquire();
+                    if (imageStorageService.deleteOrphanVariant(variant)) {
+                        job.deletedVariants.incrementAndGet();
+                    }
+                }
+            }
+            deleteStaleTempFiles(limiter, job);
+            purgeQuarantine(limiter, job);
+
+            lastMissingImages.set(job.getMissingImages());
+            job.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("中断されました");
+        } catch (Exception e) {
+            log.error("整合性チェックエラー - ジョブ: {}", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+        log.info("整合性チェック完了: 画像 {}件 / 隔離 {}件 / 復元 {}件 / 参照先なし {}件 / 完全削除 {}件 ({}ms)",
+                job.getScannedFiles(), job.getQuarantined(), job.getRestored(), job.getMissingImages(),
+                job.getPurged(), job.getElapsedMillis());
+        if (job.getMissingImages() > 0) {
+            log.warn("参照されているのにファイルがない画像があります: {}", job.getMissing());
+        }
+    }
+
+    // 参照されている画像パス（全件をリストに読み込まず、1行ずつ Set に入れる）
+    private Set<String> loadReferencedImagePaths() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            Set<String> paths = new HashSet<>();
+            try (Stream<String> imagePaths = recipeRepository.streamImagePaths()) {
+                imagePaths.forEach(paths::add);
+            }
+            return paths;
+        });
+    }
+
+    // uploads/ 直下の振り分け用のディレクトリ（ab/）ごとに並列に読む
+    private List<ShardScan> scan(Set<String> referenced, Set<String> unseen, OperationLimiter limiter,
+                                 ReconciliationJob job) throws IOException, InterruptedException {
+        Path uploadPath = imageStorageService.getUploadPath();
+        if (!Files.isDirectory(uploadPath)) {
+            return List.of();
+        }
+        List<CompletableFuture<ShardScan>> futures = new ArrayList<>();
+        for (Path shard : listDirectories(uploadPath, limiter)) {
+            futures.add(uploadScanExecutor.submitCompletable(() -> scanShard(shard, referenced, unseen, limiter, job)));
+        }
+        List<ShardScan> scans = new ArrayList<>();
+        try {
+            for (CompletableFuture<ShardScan> future : futures) {
+                scans.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+        return scans;
+    }
+
+    private ShardScan scanShard(Path shard, Set<String> referenced, Set<String> unseen, OperationLimiter limiter,
+                                ReconciliationJob job) {
+        List<Path> orphans = new ArrayList<>();
+        List<Path> orphanVariants = new ArrayList<>();
+        try {
+            for (Path directory : listDirectories(shard, limiter)) {
+                limiter.acquire();
+                List<Path> variants = new ArrayList<>();
+                Set<String> hashes = new HashSet<>();
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+                    for (Path file : files) {
+                        job.scannedFiles.incrementAndGet();
+                        if (ImageVariantService.isVariantFile(file)) {
+                            variants.add(file);
+                            continue;
+                        }
+                        String imagePath = imageStorageService.storedImagePathOf(file);
+                        if (imagePath == null) {
+                            continue;
+                        }
+                        hashes.add(hashOf(file));
+                        if (referenced.contains(imagePath)) {
+                            unseen.remove(imagePath);
+                        } else {
+                            orphans.add(file);
+                        }
+                    }
+                }
+                for (Path variant : variants) {
+                    if (!hashes.contains(hashOf(variant))) {
+                        orphanVariants.add(variant);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        return new ShardScan(orphans, orphanVariants);
+    }
+
+    // 見つからなかった画像は隔離済みなら戻し、それ以外は（今も参照されていれば）missing として報告する
+    private void restoreOrReportMissing(Set<String> unseen, OperationLimiter limiter, ReconciliationJob job)
+            throws IOException, InterruptedException {
+        List<String> candidates = new ArrayList<>();
+        for (String imagePath : unseen) {
+            // 旧形式の画像などは走査の対象外のため、ここでファイルの有無を確認する
+            if (imageStorageService.resolve(imagePath) != null) {
+                continue;
+            }
+            limiter.acquire();
+            if (imageStorageService.restore(imagePath)) {
+                job.restored.incrementAndGet();
+            } else {
+                candidates.add(imagePath);
+            }
+        }
+        // 走査中にレシピから外れた画像は missing に含めない
+        for (int from = 0; from < candidates.size(); from += BATCH_SIZE) {
+            List<String> batch = candidates.subList(from, Math.min(from + BATCH_SIZE, candidates.size()));
+            for (String imagePath : recipeRepository.findReferencedImagePaths(batch)) {
+                if (imageStorageService.resolve(imagePath) == null) {
+                    job.addMissing(imagePath);
+                }
+            }
+        }
+    }
+
+    // 保存が中断された一時ファイル（uploads/.upload-*.tmp）を削除する
+    private void deleteStaleTempFiles(OperationLimiter limiter, ReconciliationJob job)
+            throws IOException, InterruptedException {
+        Path uploadPath = imageStorageService.getUploadPath();
+        if (!Files.isDirectory(uploadPath)) {
+            return;
+        }
+        long threshold = System.currentTimeMillis() - STALE_TEMP_AGE.toMillis();
+        List<Path> staleFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadPath,
+                file -> TEMP_FILE.matcher(file.getFileName().toString()).matches())) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < threshold) {
+                    staleFiles.add(file);
+                }
+            }
+        }
+        for (Path file : staleFiles) {
+            limiter.acquire();
+            if (Files.deleteIfExists(file)) {
+                job.deletedTempFiles.incrementAndGet();
+            }
+        }
+    }
+
+    // 保持期間を過ぎた隔離済みの画像を削除する（隔離した日時が更新日時になっている）
+    private void purgeQuarantine(OperationLimiter limiter, ReconciliationJob job)
+            throws IOException, InterruptedException {
+        Path quarantinePath = imageStorageService.getQuarantinePath();
+        if (!Files.isDirectory(quarantinePath)) {
+            return;
+        }
+        long threshold = System.currentTimeMillis() - quarantineRetention.toMillis();
+        List<Path> expired;
+        try (Stream<Path> files = Files.walk(quarantinePath)) {
+            expired = files.filter(Files::isRegularFile)
+                    .filter(file -> lastModifiedMillis(file) < threshold)
+                    .toList();
+        }
+        for (Path file : expired) {
+            limiter.acquire();
+            if (Files.deleteIfExists(file)) {
+                job.purged.incrementAndGet();
+            }
+        }
+    }
+
+    private List<Path> listDirectories(Path parent, OperationLimiter limiter) throws IOException, InterruptedException {
+        limiter.acquire();
+        List<Path> directories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(parent,
+                entry -> Files.isDirectory(entry) && SHARD_DIRECTORY.matcher(entry.getFileName().toString()).matches())) {
+            entries.forEach(directories::add);
+        }
+        return directories;
+    }
+
+    private static long lastModifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            // 読めないファイルは次回に回す
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // ファイル名（<SHA-256>.jpg / <SHA-256>.card.jpg）からハッシュ値を取り出す
+    private static String hashOf(Path file) {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.indexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    // 振り分け用のディレクトリ（ab/）1つ分の走査結果
+    private record ShardScan(List<Path> orphans, List<Path> orphanVariants) {
+    }
+
+    /**
+     * ディレクトリの読み込み・ファイル操作の回数を1秒あたり一定以下にする（呼び出し元を待たせる）
+     */
+    private static class OperationLimiter {
+
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        OperationLimiter(int operationsPerSecond) {
+            this.intervalNanos = operationsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / operationsPerSecond : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(next, now);
+                next = slot + intervalNanos;
+                wait = slot - now;
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * 整合性チェックのジョブの状態
+     */
+    public static class ReconciliationJob extends BackgroundJob {
+
+        private volatile long referencedImages;
+        private final AtomicLong scannedFiles = new AtomicLong();
+        private final AtomicLong quarantined = new AtomicLong();
+        private final AtomicLong restored = new AtomicLong();
+        private final AtomicLong deletedVariants = new AtomicLong();
+        private final AtomicLong deletedTempFiles = new AtomicLong();
+        private final AtomicLong purged = new AtomicLong();
+        private final AtomicLong missingImages = new AtomicLong();
+        private final List<String> missing = new ArrayList<>();
+
+        void addMissing(String imagePath) {
+            missingImages.incrementAndGet();
+            synchronized (missing) {
+                if (missing.size() < MAX_REPORTED_MISSING) {
+                    missing.add(imagePath);
+                }
+            }
+        }
+
+        // レシピから参照されている画像の数（重複を除く）
+        public long getReferencedImages() {
+            return referencedImages;
+        }
+
+        // uploads/ab/cd/ 内のファイルの数（サイズ違いの画像を含む）
+        public long getScannedFiles() {
+            return scannedFiles.get();
+        }
+
+        // 参照されていないため隔離した画像の数
+        public long getQuarantined() {
+            return quarantined.get();
+        }
+
+        // 参照されているため隔離先から戻した画像の数
+        public long getRestored() {
+            return restored.get();
+        }
+
+        // 元画像がないため削除したサイズ違いの画像の数
+        public long getDeletedVariants() {
+            return deletedVariants.get();
+        }
+
+        // 保存が中断されたため削除した一時ファイルの数
+        public long getDeletedTempFiles() {
+            return deletedTempFiles.get();
+        }
+
+        // 保持期間を過ぎたため完全に削除した画像の数
+        public long getPurged() {
+            return purged.get();
+        }
+
+        // 参照されているのにファイルがない画像の数
+        public long getMissingImages() {
+            return missingImages.get();
+        }
+
+        // 参照されているのにファイルがない画像のパス（先頭の MAX_REPORTED_MISSING 件）
+        public List<String> getMissing() {
+            synchronized (missing) {
+                return new ArrayList<>(missing);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+-- レシピ・カテゴリ・ユーザーのテーブル（ddl-auto=update で作成されていたスキーマと同じ定義）
+-- 既存のデータベースではこのバージョンをベースラインとして扱い、実行しない（spring.flyway.baseline-on-migrate）
+
+CREATE TABLE recipe (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    title        VARCHAR(255)  NOT NULL,
+    ingredients  VARCHAR(1000),
+    instructions VARCHAR(2000),
+    favorite     BOOLEAN       NOT NULL,
+    reference    VARCHAR(1000),
+    image_path   VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE recipe_category (
+    recipe_id BIGINT NOT NULL,
+    category  VARCHAR(50),
+    CONSTRAINT fk_recipe_category_recipe FOREIGN KEY (recipe_id) REFERENCES recipe (id)
+);
+
+CREATE TABLE users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username VARCHAR(20)  NOT NULL UNIQUE,
+    password VARCHAR(100) NOT NULL,
+    role     VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
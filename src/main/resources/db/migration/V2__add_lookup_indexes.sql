@@ -0,0 +1,13 @@
+-- 一覧・画像の参照カウント用のインデックス
+-- ddl-auto=update の頃に作成済みのデータベースもあるため IF NOT EXISTS を付ける
+
+-- 画像の参照カウント（同じ画像を参照しているレシピの検索）
+CREATE INDEX IF NOT EXISTS idx_recipe_image_path ON recipe (image_path);
+
+-- お気に入り一覧（favorite = true を id 順にキーセットページング）
+CREATE INDEX IF NOT EXISTS idx_recipe_favorite ON recipe (favorite, id);
+
+CREATE INDEX IF NOT EXISTS idx_recipe_title ON recipe (title);
+
+-- カテゴリ別一覧（カテゴリで絞り込み recipe_id 順に取得）
+CREATE INDEX IF NOT EXISTS idx_recipe_category_category ON recipe_category (category, recipe_id);
@@ -0,0 +1,3 @@
+-- 楽観ロック用のバージョン（Recipe.version）
+-- 既存の行は 0 から始める（インポートなど JDBC で登録する行も既定値の 0 になる）
+ALTER TABLE recipe ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
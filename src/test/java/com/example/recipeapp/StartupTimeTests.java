@@ -0,0 +1,81 @@
+package com.example.recipeapp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * アプリケーションの起動時間（マイグレーション・スキーマ検証・起動時の集計を含む）が予算内に収まることを確認する
+ * JVM のクラス読み込み・JIT の影響を除くため、1度起動してから2度目の起動時間を測る。
+ */
+class StartupTimeTests {
+
+	// 空のデータベースから起動してリクエストを受け付けられるようになるまでの上限（2度目の起動で 1.5〜1.7 秒程度）
+	// 遅い環境では -Dstartup.budget-ms=... で変更する
+	private static final Duration STARTUP_BUDGET = Duration.ofMillis(Long.getLong("startup.budget-ms", 3_000));
+
+	@Test
+	void startsWithinBudget() {
+		start("startup-time-warmup", new BufferingApplicationStartup(10_000)).close();
+
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10_000);
+		long start = System.nanoTime();
+		try (ConfigurableApplicationContext context = start("startup-time", applicationStartup)) {
+			Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+			// 超えた場合は時間のかかった起動処理を表示する
+			assertThat(elapsed)
+					.as(() -> "起動時間 " + elapsed.toMillis() + "ms の内訳（上位）:" + System.lineSeparator()
+							+ slowestSteps(applicationStartup.getBufferedTimeline(), 10))
+					.isLessThan(STARTUP_BUDGET);
+
+			// スキーマは Hibernate ではなくマイグレーションで作成されている
+			List<String> versions = context.getBean(JdbcTemplate.class).queryForList(
+					"SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" ORDER BY \"installed_rank\"",
+					String.class);
+			assertThat(versions).contains("1", "2");
+		}
+	}
+
+	// 空のデータベースで起動する（application.properties より優先させるためコマンドライン引数として渡す）
+	private ConfigurableApplicationContext start(String database, BufferingApplicationStartup applicationStartup) {
+		return new SpringApplicationBuilder(RecipeappApplication.class)
+				.applicationStartup(applicationStartup)
+				.run(
+						"--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+						"--server.port=0",
+						"--spring.jpa.show-sql=false",
+						"--logging.level.org.hibernate.SQL=WARN",
+						"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+						"--logging.level.org.springframework.orm.jpa=WARN",
+						"--logging.level.org.springframework.transaction=WARN");
+	}
+
+	// 時間のかかった起動処理（Bean の生成など）の上位
+	private String slowestSteps(StartupTimeline timeline, int limit) {
+		return timeline.getEvents().stream()
+				.sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+				.limit(limit)
+				.map(event -> String.format("  %6dms %s %s", event.getDuration().toMillis(),
+						event.getStartupStep().getName(), tags(event.getStartupStep().getTags())))
+				.collect(Collectors.joining(System.lineSeparator()));
+	}
+
+	private String tags(StartupStep.Tags tags) {
+		return StreamSupport.stream(tags.spliterator(), false)
+				.map(tag -> tag.getKey() + "=" + tag.getValue())
+				.collect(Collectors.joining(", "));
+	}
+}
@@ -0,0 +1,299 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.service.ImageStorageService;
+import com.example.recipeapp.service.ImageVariantService;
+import com.example.recipeapp.service.RecipeQueryService;
+import com.example.recipeapp.service.RecipeStatisticsService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 一括削除（全件リセット・ID 指定）がエンティティを読み込まずに少ない SQL で終わり、画像はジョブで削除されることと、
+ * 同じレシピを同時に削除しても集計値が1回分しか減らないことを確認する
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:bulk-delete;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=WARN",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+		"app.uploads.pending-grace-period=1m",
+		"logging.level.org.springframework.orm.jpa=WARN",
+		"logging.level.org.springframework.transaction=WARN"
+})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class BulkDeleteTests {
+
+	// 画像は一時ディレクトリに保存する（作業ディレクトリの uploads/ には触れない）
+	@TempDir
+	static Path tempDir;
+
+	@DynamicPropertySource
+	static void uploadDirectories(DynamicPropertyRegistry registry) {
+		registry.add("app.uploads.dir", () -> tempDir.resolve("uploads").toString());
+		registry.add("app.uploads.quarantine-dir", () -> tempDir.resolve("uploads-quarantine").toString());
+	}
+
+	private static final int RECIPE_COUNT = 20_000;
+
+	private static final String[] CATEGORIES = {"和食", "洋食", "中華"};
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private RecipeStatisticsService recipeStatisticsService;
+
+	@Autowired
+	private RecipeQueryService recipeQueryService;
+
+	@Autowired
+	private ImageStorageService imageStorageService;
+
+	@Autowired
+	private ImageVariantService imageVariantService;
+
+	// 削除するレシピだけが使う画像 / 残すレシピと共有する画像
+	private String ownedImage;
+	private String sharedImage;
+
+	@BeforeEach
+	void seedRecipes() throws IOException {
+		ownedImage = storeImage(0x3366CC);
+		sharedImage = storeImage(0xCC6633);
+
+		List<Object[]> recipes = new ArrayList<>();
+		List<Object[]> categories = new ArrayList<>();
+		for (long id = 1; id <= RECIPE_COUNT; id++) {
+			String imagePath = id == 1 ? ownedImage : id == 2 || id == RECIPE_COUNT ? sharedImage : null;
+			recipes.add(new Object[]{id, "レシピ" + id, "材料", "作り方", id % 2 == 0, imagePath});
+			categories.add(new Object[]{id, CATEGORIES[(int) (id % CATEGORIES.length)]});
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO recipe (id, title, ingredients, instructions, favorite, image_path) VALUES (?, ?, ?, ?, ?, ?)", recipes);
+		jdbcTemplate.batchUpdate("INSERT INTO recipe_category (recipe_id, category) VALUES (?, ?)", categories);
+		// JDBC で直接投入したため集計値とキャッシュを作り直す
+		recipeStatisticsService.rebuild();
+		recipeQueryService.evictAll();
+	}
+
+	@AfterEach
+	void deleteData() throws IOException {
+		jdbcTemplate.update("DELETE FROM recipe_category");
+		jdbcTemplate.update("DELETE FROM recipe");
+		for (String imagePath : List.of(ownedImage, sharedImage)) {
+			Path file = imageStorageService.resolve(imagePath);
+			if (file != null) {
+				Files.deleteIfExists(file);
+				imageVariantService.deleteVariants(file);
+			}
+		}
+	}
+
+	@Test
+	void bulkDeleteByIds() throws Exception {
+		String ids = LongStream.rangeClosed(1, RECIPE_COUNT / 2).mapToObj(String::valueOf)
+				.collect(Collectors.joining(",", "[", "]"));
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		String body = mockMvc.perform(post("/api/admin/recipes/bulk-delete").with(csrf())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(ids))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.deletedRecipes").value(RECIPE_COUNT / 2))
+				.andReturn().getResponse().getContentAsString();
+
+		// 1000件ごとに 取得2回 + 削除2回（カテゴリ・レシピ）。1件ずつの読み込み・削除はしない
+		// （画像削除ジョブの参照確認が並行して数回実行される）
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4L * (RECIPE_COUNT / 2 / 1000) + 2);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recipe", Long.class)).isEqualTo(RECIPE_COUNT / 2);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recipe_category", Long.class)).isEqualTo(RECIPE_COUNT / 2);
+		assertThat(recipeStatisticsService.getTotalRecipes()).isEqualTo(RECIPE_COUNT / 2);
+		assertThat(recipeStatisticsService.getFavoriteRecipes()).isEqualTo(RECIPE_COUNT / 4);
+
+		// 削除したレシピだけが使っていた画像は削除し、残ったレシピが使う画像は残す
+		awaitCleanup(JsonPath.read(body, "$.imageCleanup.id"));
+		assertThat(imageStorageService.resolve(ownedImage)).isNull();
+		assertThat(imageStorageService.resolve(sharedImage)).isNotNull();
+	}
+
+	@Test
+	void resetDeletesEverything() throws Exception {
+		String body = mockMvc.perform(post("/api/admin/reset-data").with(csrf()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.deletedRecipes").value(RECIPE_COUNT))
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recipe", Long.class)).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recipe_category", Long.class)).isZero();
+		assertThat(recipeStatisticsService.getTotalRecipes()).isZero();
+		mockMvc.perform(get("/api/search").param("q", "レシピ1")).andExpect(jsonPath("$.length()").value(0));
+
+		awaitCleanup(JsonPath.read(body, "$.imageCleanup.id"));
+		assertThat(imageStorageService.resolve(ownedImage)).isNull();
+		assertThat(imageStorageService.resolve(sharedImage)).isNull();
+	}
+
+	@Test
+	@WithMockUser
+	void adminApisAreForbiddenToRegularUsers() throws Exception {
+		mockMvc.perform(post("/api/admin/recipes/bulk-delete").with(csrf())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[1,2,3]"))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(post("/api/admin/reset-data").with(csrf()))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(post("/api/admin/upload-reconciliation").with(csrf()))
+				.andExpect(status().isForbidden());
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recipe", Long.class)).isEqualTo(RECIPE_COUNT);
+	}
+
+	@Test
+	void concurrentDeletesOfSameRecipeAreCountedOnce() throws Exception {
+		long id = 4;
+		String category = CATEGORIES[(int) (id % CATEGORIES.length)];
+		long categoryCount = recipeStatisticsService.getCategoryCount(category);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Integer> statuses = new ArrayList<>();
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> mockMvc.perform(delete("/recipes/{id}/delete", id).with(csrf()).with(user("user")))
+						.andReturn().getResponse().getStatus()));
+			}
+			for (Future<Integer> result : results) {
+				statuses.add(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// 行を削除できた1件だけが集計値に反映され、残りは 404 になる
+		assertThat(statuses).containsOnlyOnce(200).containsOnly(200, 404);
+		assertThat(recipeStatisticsService.getTotalRecipes()).isEqualTo(RECIPE_COUNT - 1);
+		assertThat(recipeStatisticsService.getFavoriteRecipes()).isEqualTo(RECIPE_COUNT / 2 - 1);
+		assertThat(recipeStatisticsService.getCategoryCount(category)).isEqualTo(categoryCount - 1);
+	}
+
+	@Test
+	void rebuildWaitsForWritesInProgress() throws Exception {
+		CountDownLatch committed = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			// コミット済みで、集計値にはまだ反映していない書き込み
+			Future<?> write = executor.submit(() -> recipeStatisticsService.update(() -> {
+				jdbcTemplate.update("INSERT INTO recipe (id, title, ingredients, instructions, favorite) VALUES (?, ?, ?, ?, ?)",
+						RECIPE_COUNT + 1, "追加したレシピ", "", "", true);
+				committed.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				recipeStatisticsService.recipeAdded(List.of(), true);
+				return null;
+			}));
+			committed.await();
+
+			// 作り直しは書き込みが終わるまで待つ（先に数えると、書き込みの反映で二重に数える）
+			Future<?> rebuild = executor.submit(recipeStatisticsService::rebuild);
+			assertThatThrownBy(() -> rebuild.get(500, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+			release.countDown();
+			write.get();
+			rebuild.get();
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(recipeStatisticsService.getTotalRecipes()).isEqualTo(RECIPE_COUNT + 1);
+		assertThat(recipeStatisticsService.getFavoriteRecipes()).isEqualTo(RECIPE_COUNT / 2 + 1);
+	}
+
+	private void awaitCleanup(String jobId) throws Exception {
+		for (int i = 0; i < 100; i++) {
+			String job = mockMvc.perform(get("/api/admin/image-cleanup/{jobId}", jobId))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			String state = JsonPath.read(job, "$.state");
+			if (!state.equals("QUEUED") && !state.equals("RUNNING")) {
+				assertThat(state).isEqualTo("COMPLETED");
+				return;
+			}
+			Thread.sleep(50);
+		}
+		throw new AssertionError("画像削除ジョブが終わりません: " + jobId);
+	}
+
+	// アップロード直後の画像は削除されないため、更新日時を過去にずらしておく
+	private String storeImage(int rgb) throws IOException {
+		BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < 16; y++) {
+			for (int x = 0; x < 16; x++) {
+				image.setRGB(x, y, rgb);
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		String imagePath = imageStorageService.store(new ByteArrayInputStream(out.toByteArray()));
+		Files.setLastModifiedTime(imageStorageService.resolve(imagePath), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+		return imagePath;
+	}
+}
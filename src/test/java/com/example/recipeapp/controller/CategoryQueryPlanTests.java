@@ -0,0 +1,45 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.repository.RecipeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * カテゴリ別一覧のクエリがインデックスを順に読み、ソートしないことを実行計画で確認する
+ * レシピ数に対する応答時間は JMH のベンチマーク（CategoryPageBenchmark、-Pjmh）で測る。
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:category-query-plan;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=WARN",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+class CategoryQueryPlanTests {
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	@Test
+	void categoryQueryReadsIndexInOrder() throws Exception {
+		String sql = RecipeRepository.class
+				.getMethod("findCategorySummariesAfter", String.class, Long.class, Limit.class)
+				.getAnnotation(Query.class).value();
+
+		List<Map<String, Object>> plan = namedParameterJdbcTemplate.queryForList(
+				"EXPLAIN " + sql + " FETCH FIRST 21 ROWS ONLY",
+				Map.of("category", "和食", "afterId", 0L));
+		String text = plan.get(0).values().iterator().next().toString();
+
+		// インデックスの範囲検索のみで、ソートを行わない
+		assertThat(text).containsIgnoringCase("IDX_RECIPE_CATEGORY_CATEGORY").contains("index sorted");
+	}
+}
@@ -0,0 +1,300 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.repository.RecipeRepository;
+import com.example.recipeapp.service.ImageStorageService;
+import com.example.recipeapp.service.ImageVariantService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 画像をリクエストボディで直接送るアップロード（/recipes/images）と、その画像パスを使ったレシピの登録
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:image-upload;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=WARN",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureMockMvc
+@WithMockUser
+class ImageUploadTests {
+
+	// 画像は一時ディレクトリに保存する（作業ディレクトリの uploads/ には触れない）
+	@TempDir
+	static Path tempDir;
+
+	@DynamicPropertySource
+	static void uploadDirectories(DynamicPropertyRegistry registry) {
+		registry.add("app.uploads.dir", () -> tempDir.resolve("uploads").toString());
+		registry.add("app.uploads.quarantine-dir", () -> tempDir.resolve("uploads-quarantine").toString());
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private ImageStorageService imageStorageService;
+
+	@Autowired
+	private ImageVariantService imageVariantService;
+
+	// テストで保存した画像（uploads/ から削除する）
+	private final List<String> storedImages = new ArrayList<>();
+
+	@AfterEach
+	void deleteStoredImages() throws IOException {
+		for (String imagePath : storedImages) {
+			Path file = imageStorageService.resolve(imagePath);
+			if (file != null) {
+				Files.deleteIfExists(file);
+				imageVariantService.deleteVariants(file);
+				// 空になった振り分け用のディレクトリ（ab/cd）も削除する
+				for (Path dir = file.getParent(); !dir.getFileName().toString().equals("uploads"); dir = dir.getParent()) {
+					try (var entries = Files.list(dir)) {
+						if (entries.findAny().isPresent()) {
+							break;
+						}
+					}
+					Files.delete(dir);
+				}
+			}
+		}
+	}
+
+	@Test
+	void uploadedImageCanBeUsedForNewRecipe() throws Exception {
+		String body = mockMvc.perform(post("/recipes/images")
+						.contentType(MediaType.IMAGE_PNG)
+						.content(png()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String imagePath = JsonPath.read(body, "$.imagePath");
+		storedImages.add(imagePath);
+
+		// 内容アドレス方式のパスに、先頭のバイト列から判定した拡張子で保存される
+		assertThat(imagePath).matches("/uploads/[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.png");
+		assertThat(imageStorageService.resolve(imagePath)).isRegularFile();
+
+		mockMvc.perform(post("/recipes/new")
+						.param("title", "画像付きレシピ")
+						.param("imagePath", imagePath))
+				.andExpect(status().is3xxRedirection())
+				.andExpect(redirectedUrl("/home?loading=true"));
+		assertThat(recipeRepository.findAll())
+				.filteredOn(recipe -> recipe.getTitle().equals("画像付きレシピ"))
+				.extracting(Recipe::getImagePath)
+				.containsExactly(imagePath);
+	}
+
+	@Test
+	void uploadedImageIsKeptWhileFormIsBeingEdited() throws Exception {
+		String body = mockMvc.perform(post("/recipes/images")
+						.contentType(MediaType.IMAGE_PNG)
+						.content(png()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String imagePath = JsonPath.read(body, "$.imagePath");
+		storedImages.add(imagePath);
+
+		// フォームの入力中（1時間後）に同じ画像を使う別のレシピが削除されても、まだ参照されていない画像は残す
+		Files.setLastModifiedTime(imageStorageService.resolve(imagePath), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+		imageStorageService.release(imagePath);
+		assertThat(imageStorageService.resolve(imagePath)).isRegularFile();
+
+		mockMvc.perform(post("/recipes/new")
+						.param("title", "入力に時間がかかったレシピ")
+						.param("imagePath", imagePath))
+				.andExpect(status().is3xxRedirection())
+				.andExpect(redirectedUrl("/home?loading=true"));
+	}
+
+	@Test
+	void rejectsFilesThatAreNotImages() throws Exception {
+		mockMvc.perform(post("/recipes/images")
+						.contentType(MediaType.IMAGE_JPEG)
+						.content("<html>not an image</html>".getBytes(StandardCharsets.UTF_8)))
+				.andExpect(status().isUnsupportedMediaType())
+				.andExpect(jsonPath("$.error").exists());
+	}
+
+	@Test
+	void rejectsOversizedImages() throws Exception {
+		long maxBytes = imageStorageService.getMaxFileSize().toBytes();
+
+		// Content-Length で分かる場合は読み込まずに断る
+		mockMvc.perform(post("/recipes/images")
+						.contentType(MediaType.IMAGE_JPEG)
+						.header(HttpHeaders.CONTENT_LENGTH, maxBytes + 1)
+						.content(new byte[0]))
+				.andExpect(status().isPayloadTooLarge());
+
+		// 長さが分からない場合は上限を超えた時点で打ち切り、一時ファイルも残さない
+		byte[] oversized = new byte[(int) maxBytes + 1];
+		oversized[0] = (byte) 0xFF;
+		oversized[1] = (byte) 0xD8;
+		oversized[2] = (byte) 0xFF;
+		mockMvc.perform(post("/recipes/images")
+						.contentType(MediaType.IMAGE_JPEG)
+						.content(oversized))
+				.andExpect(status().isPayloadTooLarge());
+		try (var files = Files.list(imageStorageService.getUploadPath())) {
+			assertThat(files.map(path -> path.getFileName().toString()))
+					.noneMatch(name -> name.startsWith(".upload-"));
+		}
+	}
+
+	@Test
+	void rejectsImagesWithTooManyPixels() throws Exception {
+		// ファイルは小さいが、デコードすると数GBになる寸法を宣言した PNG
+		byte[] image = pngHeader(30000, 30000);
+		mockMvc.perform(post("/recipes/images")
+						.contentType(MediaType.IMAGE_PNG)
+						.content(image))
+				.andExpect(status().isPayloadTooLarge())
+				.andExpect(jsonPath("$.error").exists());
+
+		// 保存されず、一時ファイルも残さない
+		String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+		assertThat(imageStorageService.resolve("/uploads/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".png"))
+				.isNull();
+		try (var files = Files.list(imageStorageService.getUploadPath())) {
+			assertThat(files.map(path -> path.getFileName().toString()))
+					.noneMatch(name -> name.startsWith(".upload-"));
+		}
+	}
+
+	@Test
+	void rejectsUnknownImagePath() throws Exception {
+		mockMvc.perform(post("/recipes/new")
+						.param("title", "存在しない画像")
+						.param("imagePath", "/uploads/../data/recipeapp.mv.db"))
+				.andExpect(status().is3xxRedirection())
+				.andExpect(redirectedUrl("/recipes/new"));
+		assertThat(recipeRepository.findAll()).extracting(Recipe::getTitle).doesNotContain("存在しない画像");
+	}
+
+	@Test
+	void importIsForbiddenToRegularUsers() throws Exception {
+		mockMvc.perform(post("/api/import").with(csrf())
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content("{\"title\":\"取り込み\"}".getBytes(StandardCharsets.UTF_8)))
+				.andExpect(status().isForbidden());
+
+		assertThat(recipeRepository.findAll()).extracting(Recipe::getTitle).doesNotContain("取り込み");
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	void importKeepsOnlyStoredOriginalImages() throws Exception {
+		String body = mockMvc.perform(post("/recipes/images")
+						.contentType(MediaType.IMAGE_PNG)
+						.content(png()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String imagePath = JsonPath.read(body, "$.imagePath");
+		storedImages.add(imagePath);
+
+		// サイズ違いの画像・旧形式（uploads/ 直下）の画像は、ファイルがあってもレシピの画像にしない
+		// （サイズ違いの画像はバックグラウンドで生成されるため、ここで用意しておく）
+		Path original = imageStorageService.resolve(imagePath);
+		Files.copy(original, ImageVariantService.variantPath(original, ImageVariantService.Variant.CARD),
+				StandardCopyOption.REPLACE_EXISTING);
+		String variantPath = imagePath.replace(".png", ".card.png");
+		assertThat(imageStorageService.resolve(variantPath)).isRegularFile();
+		Path legacy = Files.copy(original, imageStorageService.getUploadPath().resolve("legacy.png"));
+		try {
+			String ndjson = String.join("\n",
+					"{\"title\":\"取り込み（元画像）\",\"imagePath\":\"/uploads/./" + imagePath.substring("/uploads/".length()) + "\"}",
+					"{\"title\":\"取り込み（サイズ違い）\",\"imagePath\":\"" + variantPath + "\"}",
+					"{\"title\":\"取り込み（旧形式）\",\"imagePath\":\"/uploads/legacy.png\"}");
+			mockMvc.perform(post("/api/import").with(csrf())
+							.contentType(MediaType.APPLICATION_NDJSON)
+							.content(ndjson.getBytes(StandardCharsets.UTF_8)))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.imported").value(3));
+
+			// 元画像は正規化したパスで取り込む
+			assertThat(recipeRepository.findAll())
+					.filteredOn(recipe -> recipe.getTitle().startsWith("取り込み"))
+					.extracting(Recipe::getTitle, Recipe::getImagePath)
+					.containsExactlyInAnyOrder(
+							tuple("取り込み（元画像）", imagePath),
+							tuple("取り込み（サイズ違い）", null),
+							tuple("取り込み（旧形式）", null));
+		} finally {
+			Files.deleteIfExists(legacy);
+		}
+	}
+
+	// 寸法だけを宣言した PNG（IHDR と IEND のみ）
+	private byte[] pngHeader(int width, int height) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+		ByteBuffer ihdr = ByteBuffer.allocate(13).putInt(width).putInt(height).put(new byte[]{8, 2, 0, 0, 0});
+		writeChunk(out, "IHDR", ihdr.array());
+		writeChunk(out, "IEND", new byte[0]);
+		return out.toByteArray();
+	}
+
+	private void writeChunk(ByteArrayOutputStream out, String type, byte[] data) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(type.getBytes(StandardCharsets.US_ASCII));
+		crc.update(data);
+		out.write(ByteBuffer.allocate(4).putInt(data.length).array());
+		out.write(type.getBytes(StandardCharsets.US_ASCII));
+		out.write(data);
+		out.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+	}
+
+	private byte[] png() throws IOException {
+		BufferedImage image = new BufferedImage(32, 24, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = new int[32 * 24];
+		Arrays.fill(pixels, 0x3366CC);
+		image.setRGB(0, 0, 32, 24, pixels, 0, 32);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
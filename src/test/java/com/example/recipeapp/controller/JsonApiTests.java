@@ -0,0 +1,202 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.service.RecipeQueryService;
+import com.example.recipeapp.service.RecipeSearchIndex;
+import com.example.recipeapp.service.RecipeStatisticsService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * JSON の API が必要な項目だけを返し（長いテキスト列は読み込まない）、データが変わるまでは 304 を返すことを確認する
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:json-api;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=WARN",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureMockMvc
+@WithMockUser
+class JsonApiTests {
+
+	private static final int RECIPE_COUNT = 50;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private RecipeSearchIndex recipeSearchIndex;
+
+	@Autowired
+	private RecipeStatisticsService recipeStatisticsService;
+
+	@Autowired
+	private RecipeQueryService recipeQueryService;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void seedRecipes() {
+		List<Object[]> recipes = new ArrayList<>();
+		List<Object[]> categories = new ArrayList<>();
+		for (long id = 1; id <= RECIPE_COUNT; id++) {
+			recipes.add(new Object[]{id, "カレー" + id, "材料".repeat(400), "作り方".repeat(600), id % 2 == 0});
+			categories.add(new Object[]{id, "和食"});
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO recipe (id, title, ingredients, instructions, favorite) VALUES (?, ?, ?, ?, ?)", recipes);
+		jdbcTemplate.batchUpdate("INSERT INTO recipe_category (recipe_id, category) VALUES (?, ?)", categories);
+		// JDBC で直接投入したため検索インデックス・集計値・キャッシュを作り直す
+		recipeSearchIndex.rebuild();
+		recipeStatisticsService.rebuild();
+		recipeQueryService.evictAll();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void deleteData() {
+		jdbcTemplate.update("DELETE FROM recipe_category");
+		jdbcTemplate.update("DELETE FROM recipe");
+		recipeSearchIndex.clear();
+		recipeStatisticsService.rebuild();
+		recipeQueryService.evictAll();
+	}
+
+	@Test
+	void searchReturnsSummaryFieldsWithoutLoadingEntities() throws Exception {
+		mockMvc.perform(get("/api/search").param("q", "カレー").param("size", "20"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("X-Total-Count", String.valueOf(RECIPE_COUNT)))
+				.andExpect(jsonPath("$.length()").value(20))
+				.andExpect(jsonPath("$[0].title").exists())
+				.andExpect(jsonPath("$[0].categories[0]").value("和食"))
+				.andExpect(jsonPath("$[0].ingredients").doesNotExist())
+				.andExpect(jsonPath("$[0].instructions").doesNotExist());
+
+		// 一覧表示用の列 + カテゴリの2回だけ（エンティティ・長いテキスト列は読み込まない）
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void searchReturnsOnlySelectedFields() throws Exception {
+		mockMvc.perform(get("/api/search").param("q", "カレー1").param("fields", "id,ingredients"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").exists())
+				.andExpect(jsonPath("$[0].ingredients").value("材料".repeat(400)))
+				.andExpect(jsonPath("$[0].title").doesNotExist())
+				.andExpect(jsonPath("$[0].categories").doesNotExist());
+
+		mockMvc.perform(get("/api/search").param("q", "カレー").param("fields", "id,password"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void singleCharacterQueryMatchesAnywhereInWord() throws Exception {
+		// 「ー」はバイグラム「レー」の2文字目（前方一致だけでは見つからない）
+		mockMvc.perform(get("/api/search").param("q", "ー"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("X-Total-Count", String.valueOf(RECIPE_COUNT)));
+		mockMvc.perform(get("/api/search").param("q", "カ"))
+				.andExpect(header().string("X-Total-Count", String.valueOf(RECIPE_COUNT)));
+	}
+
+	@Test
+	void searchWithoutTextPagesByCursor() throws Exception {
+		// お気に入り（偶数 id）を id 順に返す
+		String cursor = mockMvc.perform(get("/api/search").param("favorite", "true").param("size", "10"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("X-Total-Count", String.valueOf(RECIPE_COUNT / 2)))
+				.andExpect(jsonPath("$.length()").value(10))
+				.andExpect(jsonPath("$[0].id").value(2))
+				.andExpect(jsonPath("$[9].id").value(20))
+				.andExpect(jsonPath("$[0].categories[0]").value("和食"))
+				.andExpect(header().string("X-Next-Cursor", "20"))
+				.andReturn().getResponse().getHeader("X-Next-Cursor");
+
+		// 最後のページには次のカーソルを付けない
+		mockMvc.perform(get("/api/search").param("favorite", "true").param("size", "20").param("after", cursor))
+				.andExpect(jsonPath("$.length()").value(15))
+				.andExpect(jsonPath("$[0].id").value(22))
+				.andExpect(header().doesNotExist("X-Next-Cursor"));
+
+		mockMvc.perform(get("/api/search").param("favorite", "false").param("size", "5"))
+				.andExpect(header().string("X-Total-Count", String.valueOf(RECIPE_COUNT / 2)))
+				.andExpect(jsonPath("$[0].id").value(1))
+				.andExpect(jsonPath("$[4].id").value(9));
+
+		mockMvc.perform(get("/api/search").param("size", "5").param("after", "45").param("fields", "id,ingredients"))
+				.andExpect(header().string("X-Total-Count", String.valueOf(RECIPE_COUNT)))
+				.andExpect(jsonPath("$.length()").value(5))
+				.andExpect(jsonPath("$[0].id").value(46))
+				.andExpect(jsonPath("$[0].ingredients").value("材料".repeat(400)))
+				.andExpect(header().doesNotExist("X-Next-Cursor"));
+	}
+
+	@Test
+	void searchWithoutTextPagesByPageNumber() throws Exception {
+		// page だけを指定した場合も DB から id 順に返す（3ページ目のお気に入り = 偶数 id の 21〜30件目）
+		mockMvc.perform(get("/api/search").param("favorite", "true").param("page", "2").param("size", "10"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("X-Total-Count", String.valueOf(RECIPE_COUNT / 2)))
+				.andExpect(jsonPath("$.length()").value(5))
+				.andExpect(jsonPath("$[0].id").value(42))
+				.andExpect(jsonPath("$[0].categories[0]").value("和食"))
+				.andExpect(header().doesNotExist("X-Next-Cursor"));
+
+		mockMvc.perform(get("/api/search").param("page", "1").param("size", "20"))
+				.andExpect(jsonPath("$.length()").value(20))
+				.andExpect(jsonPath("$[0].id").value(21))
+				.andExpect(header().string("X-Next-Cursor", "40"));
+	}
+
+	@Test
+	void unchangedDataIsAnsweredWithNotModified() throws Exception {
+		for (String url : List.of("/api/stats", "/api/categories", "/api/search?q=カレー")) {
+			String etag = mockMvc.perform(get(url))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+			assertThat(etag).as(url).isNotNull();
+
+			mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isNotModified());
+
+			// データが変わったら新しい内容を返す
+			mockMvc.perform(post("/recipes/{id}/toggleFavorite", 1)).andExpect(status().isOk());
+			mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isOk())
+					.andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.service.CustomUserDetailsService;
+import com.example.recipeapp.service.RecipeQueryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+/**
+ * ログイン時のユーザー情報のキャッシュと、パスワードの照合を専用のスレッドプールで行うこと（混雑時は断る）を確認する
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:login;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=WARN",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+		"app.security.hashing.workers=1",
+		"app.security.hashing.queue-capacity=1",
+		"app.security.hashing.timeout=2s"
+})
+@AutoConfigureMockMvc
+class LoginTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private RecipeQueryService recipeQueryService;
+
+	@Autowired
+	@Qualifier("passwordHashingExecutor")
+	private ThreadPoolTaskExecutor passwordHashingExecutor;
+
+	@Test
+	void cachedUserCanLogInRepeatedly() throws Exception {
+		mockMvc.perform(formLogin().user("user").password("password")).andExpect(redirectedUrl("/home"));
+		long hits = userCacheStatistics("hitCount");
+
+		// 認証後にパスワードが消去されても、キャッシュの値には影響しない
+		mockMvc.perform(formLogin().user("user").password("password")).andExpect(redirectedUrl("/home"));
+		mockMvc.perform(formLogin().user("user").password("wrong-password")).andExpect(redirectedUrl("/login?error=true"));
+		assertThat(userCacheStatistics("hitCount") - hits).isGreaterThanOrEqualTo(2);
+	}
+
+	@Test
+	void registeredUserCanLogInImmediately() throws Exception {
+		// 存在しないユーザーはキャッシュしない
+		mockMvc.perform(formLogin().user("newcomer").password("newcomer-password")).andExpect(redirectedUrl("/login?error=true"));
+
+		mockMvc.perform(post("/register").with(csrf())
+						.param("username", "newcomer")
+						.param("password", "newcomer-password"))
+				.andExpect(redirectedUrl("/login"));
+		mockMvc.perform(formLogin().user("newcomer").password("newcomer-password")).andExpect(redirectedUrl("/home"));
+	}
+
+	@Test
+	void loginIsRejectedWhenHashingIsSaturated() throws Exception {
+		// スレッド（1）と待ち行列（1）を埋める
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			passwordHashingExecutor.execute(() -> await(release));
+			while (passwordHashingExecutor.getActiveCount() == 0) {
+				Thread.sleep(10);
+			}
+			passwordHashingExecutor.execute(() -> await(release));
+
+			mockMvc.perform(formLogin().user("user").password("password")).andExpect(redirectedUrl("/login?busy=true"));
+		} finally {
+			release.countDown();
+		}
+
+		// 空いたら受け付ける
+		while (passwordHashingExecutor.getActiveCount() > 0 || passwordHashingExecutor.getQueueSize() > 0) {
+			Thread.sleep(10);
+		}
+		mockMvc.perform(formLogin().user("user").password("password")).andExpect(redirectedUrl("/home"));
+	}
+
+	private long userCacheStatistics(String name) {
+		return ((Number) recipeQueryService.getCacheStatistics().get(CustomUserDetailsService.USER_CACHE).get(name)).longValue();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
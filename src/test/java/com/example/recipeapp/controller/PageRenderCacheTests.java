@@ -0,0 +1,192 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.service.ImageVariantService;
+import com.example.recipeapp.service.RecipeCardRenderer;
+import com.example.recipeapp.service.RecipeQueryService;
+import com.example.recipeapp.service.RecipeStatisticsService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 一覧画面の ETag（変更がなければ 304）と、描画済みのレシピカードのキャッシュを確認する
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:page-render-cache;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"spring.thymeleaf.cache=true",
+		"logging.level.org.hibernate.SQL=WARN",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+		"logging.level.org.springframework.orm.jpa=WARN",
+		"logging.level.org.springframework.transaction=WARN"
+})
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PageRenderCacheTests {
+
+	private static final int RECIPE_COUNT = 200;
+
+	private static final int ITERATIONS = 200;
+
+	private static final Cookie CSRF_COOKIE = new Cookie("XSRF-TOKEN", "csrf-token");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private RecipeStatisticsService recipeStatisticsService;
+
+	@Autowired
+	private RecipeQueryService recipeQueryService;
+
+	@Autowired
+	private ImageVariantService imageVariantService;
+
+	@BeforeAll
+	void seedRecipes() throws InterruptedException {
+		List<Object[]> recipes = new ArrayList<>();
+		List<Object[]> categories = new ArrayList<>();
+		for (long id = 1; id <= RECIPE_COUNT; id++) {
+			recipes.add(new Object[]{id, "レシピ" + id, "材料", "作り方", false});
+			categories.add(new Object[]{id, id % 2 == 0 ? "和食" : "洋食"});
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO recipe (id, title, ingredients, instructions, favorite) VALUES (?, ?, ?, ?, ?)", recipes);
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO recipe_category (recipe_id, category) VALUES (?, ?)", categories);
+		// JDBC で直接投入したため集計値とキャッシュを作り直す
+		recipeStatisticsService.rebuild();
+		recipeQueryService.evictAll();
+
+		// 起動時に uploads/ のサイズ違いの画像を生成し終えるまで待つ（生成すると ETag が変わるため）
+		long generation = -1;
+		for (int i = 0; i < 100 && (generation != imageVariantService.getGeneration() || imageVariantService.getQueueDepth() > 0); i++) {
+			generation = imageVariantService.getGeneration();
+			Thread.sleep(200);
+		}
+	}
+
+	@Test
+	void unchangedPageIsNotRenderedAgain() throws Exception {
+		MvcResult first = mockMvc.perform(get("/home").cookie(CSRF_COOKIE))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+				.andReturn();
+		String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).startsWith("W/\"");
+
+		mockMvc.perform(get("/home").cookie(CSRF_COOKIE).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+
+		// ページ・ユーザー・CSRF トークンが異なれば別の画面として扱う
+		mockMvc.perform(get("/recipes/favorites").cookie(CSRF_COOKIE).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/home").cookie(CSRF_COOKIE).header(HttpHeaders.IF_NONE_MATCH, etag).with(user("other")))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/home").cookie(new Cookie("XSRF-TOKEN", "rotated")).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+
+		// フラッシュメッセージのある画面は毎回描画する
+		mockMvc.perform(get("/home").cookie(CSRF_COOKIE).header(HttpHeaders.IF_NONE_MATCH, etag)
+						.flashAttr("successMessage", "保存しました"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void updatedRecipeChangesEtagAndCard() throws Exception {
+		String etag = mockMvc.perform(get("/recipes/category/{category}", "和食").cookie(CSRF_COOKIE))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(post("/recipes/{id}/toggleFavorite", 2)).andExpect(status().isOk());
+
+		MvcResult updated = mockMvc.perform(get("/recipes/category/{category}", "和食").cookie(CSRF_COOKIE)
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertThat(updated.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+		// 描画済みのカードではなく、お気に入りに切り替えた後のカードが表示される
+		String html = updated.getResponse().getContentAsString();
+		String card = html.substring(html.indexOf("data-recipe-id=\"2\""));
+		assertThat(card.substring(0, card.indexOf("</section>"))).contains("heart_active.svg");
+
+		mockMvc.perform(post("/recipes/{id}/toggleFavorite", 2)).andExpect(status().isOk());
+	}
+
+	@Test
+	void cardsAreRenderedOnce() throws Exception {
+		mockMvc.perform(get("/recipes/category/{category}", "洋食").param("size", "50")).andExpect(status().isOk());
+		long hits = cardStatistics("hitCount");
+
+		String html = mockMvc.perform(get("/recipes/category/{category}", "洋食").param("size", "50").param("partial", "true"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		// 2回目は同じレシピのカードを描画せずに使い回す
+		assertThat(cardStatistics("hitCount") - hits).isEqualTo(50);
+		assertThat(html).contains("href=\"/recipes/category/洋食\"").doesNotContain("_csrf").doesNotContain("jsessionid");
+	}
+
+	@Test
+	void notModifiedIsFasterThanRendering() throws Exception {
+		String etag = mockMvc.perform(get("/home").param("size", "100").cookie(CSRF_COOKIE))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		long rendered = measure(() -> mockMvc.perform(get("/home").param("size", "100").cookie(CSRF_COOKIE))
+				.andExpect(status().isOk()));
+		long notModified = measure(() -> mockMvc.perform(get("/home").param("size", "100").cookie(CSRF_COOKIE)
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified()));
+
+		assertThat(notModified)
+				.as("ホーム画面（100件）: 描画 %.3fms / 304 %.3fms", rendered / 1e6, notModified / 1e6)
+				.isLessThan(rendered);
+	}
+
+	private long cardStatistics(String name) throws Exception {
+		Map<String, Map<String, Object>> statistics = recipeQueryService.getCacheStatistics();
+		return ((Number) statistics.get(RecipeCardRenderer.CARD_CACHE).get(name)).longValue();
+	}
+
+	// 1回あたりの平均時間（ナノ秒）
+	private long measure(Request request) throws Exception {
+		for (int i = 0; i < ITERATIONS / 4; i++) {
+			request.perform();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			request.perform();
+		}
+		return (System.nanoTime() - start) / ITERATIONS;
+	}
+
+	@FunctionalInterface
+	private interface Request {
+		void perform() throws Exception;
+	}
+}
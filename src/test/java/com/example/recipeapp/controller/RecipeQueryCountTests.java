@@ -0,0 +1,195 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.service.RecipeStatisticsService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 一覧・統計・エクスポートの SQL 発行回数がレシピ件数に依存しないことを確認する
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:query-count;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=WARN",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RecipeQueryCountTests {
+
+	private static final int RECIPE_COUNT = 10_000;
+
+	private static final String[] CATEGORIES = {"和食", "洋食", "中華", "麺類", "スープ", "サラダ"};
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private RecipeStatisticsService recipeStatisticsService;
+
+	private Statistics statistics;
+
+	@BeforeAll
+	void seedRecipes() {
+		List<Object[]> recipes = new ArrayList<>();
+		List<Object[]> categories = new ArrayList<>();
+		for (long id = 1; id <= RECIPE_COUNT; id++) {
+			recipes.add(new Object[]{id, "レシピ" + id, "材料" + id, "作り方" + id, id % 3 == 0});
+			categories.add(new Object[]{id, CATEGORIES[(int) (id % CATEGORIES.length)]});
+			categories.add(new Object[]{id, CATEGORIES[(int) ((id + 1) % CATEGORIES.length)]});
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO recipe (id, title, ingredients, instructions, favorite) VALUES (?, ?, ?, ?, ?)", recipes);
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO recipe_category (recipe_id, category) VALUES (?, ?)", categories);
+		// JDBC で直接投入したため集計値を作り直す
+		recipeStatisticsService.rebuild();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@BeforeEach
+	void resetStatistics() {
+		statistics.clear();
+	}
+
+	@Test
+	void homePageUsesBoundedQueries() throws Exception {
+		mockMvc.perform(get("/home").param("size", "100")).andExpect(status().isOk());
+
+		// 一覧 + カテゴリ（件数は集計済みの値を使用）
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void favoritesPageUsesBoundedQueries() throws Exception {
+		mockMvc.perform(get("/recipes/favorites").param("size", "100")).andExpect(status().isOk());
+
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void categoryPageUsesBoundedQueries() throws Exception {
+		mockMvc.perform(get("/recipes/category/{category}", CATEGORIES[0]).param("size", "100"))
+				.andExpect(status().isOk());
+
+		// カテゴリで絞り込んだ一覧 + カテゴリ（件数は集計済みの値を使用）
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void statsAndCategoriesDoNotTouchDatabase() throws Exception {
+		mockMvc.perform(get("/api/stats"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalRecipes").value(RECIPE_COUNT))
+				.andExpect(jsonPath("$.favoriteRecipes").value(RECIPE_COUNT / 3));
+		mockMvc.perform(get("/api/categories"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalCategories").value(CATEGORIES.length));
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void toggleFavoriteDoesNotLoadRecipe() throws Exception {
+		long id = 1;
+		mockMvc.perform(post("/recipes/{id}/toggleFavorite", id))
+				.andExpect(status().isOk())
+				.andExpect(content().string("true"));
+
+		// 反転の UPDATE + 反転後の状態の SELECT のみ（エンティティは読み込まない）
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+
+		mockMvc.perform(post("/recipes/{id}/favorite", id).param("favorite", "false"))
+				.andExpect(status().isOk())
+				.andExpect(content().string("false"));
+		// 既に同じ状態なら更新しない
+		mockMvc.perform(post("/recipes/{id}/favorite", id).param("favorite", "false"))
+				.andExpect(status().isOk());
+		assertThat(version(id)).isEqualTo(2);
+
+		mockMvc.perform(post("/recipes/{id}/toggleFavorite", RECIPE_COUNT + 1))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void concurrentTogglesAreNotLost() throws Exception {
+		long id = 2;
+		int toggles = 20;
+		long versionBefore = version(id);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < toggles; i++) {
+				results.add(executor.submit(() -> mockMvc.perform(post("/recipes/{id}/toggleFavorite", id).with(user("user")))
+						.andReturn().getResponse().getStatus()));
+			}
+			for (Future<Integer> result : results) {
+				assertThat(result.get()).isEqualTo(200);
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// 偶数回の切り替えで元の状態（id % 3 != 0 のためお気に入りではない）に戻り、集計値も変わらない
+		assertThat(jdbcTemplate.queryForObject("SELECT favorite FROM recipe WHERE id = ?", Boolean.class, id)).isFalse();
+		assertThat(version(id)).isEqualTo(versionBefore + toggles);
+		assertThat(recipeStatisticsService.getFavoriteRecipes()).isEqualTo(RECIPE_COUNT / 3);
+	}
+
+	private long version(long id) {
+		return jdbcTemplate.queryForObject("SELECT version FROM recipe WHERE id = ?", Long.class, id);
+	}
+
+	@Test
+	void exportUsesBoundedQueries() throws Exception {
+		MvcResult result = mockMvc.perform(get("/api/export").param("format", "ndjson"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(body.lines()).hasSize(RECIPE_COUNT);
+		// 500件ごとにレシピ + カテゴリの2クエリ（レシピごとのカテゴリ取得は発生しない）
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * (RECIPE_COUNT / 500 + 1));
+		assertThat(statistics.getCollectionFetchCount()).isZero();
+	}
+}
@@ -0,0 +1,219 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.service.ImageStorageService;
+import com.example.recipeapp.service.ImageVariantService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * アップロード画像の整合性チェックが、参照されていない画像の隔離・復元・完全削除と、ファイルがない画像の報告を行うことを確認する
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:upload-reconciliation;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=WARN",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+		"app.uploads.pending-grace-period=1m",
+		"app.uploads.reconcile.cron=-",
+		"app.uploads.reconcile.quarantine-retention=1d"
+})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class UploadReconciliationTests {
+
+	// どこにも保存されていない画像のパス
+	private static final String MISSING_IMAGE = "/uploads/ff/ff/" + "f".repeat(64) + ".png";
+
+	// 画像は一時ディレクトリに保存する（作業ディレクトリの uploads/ には触れない）
+	@TempDir
+	static Path tempDir;
+
+	@DynamicPropertySource
+	static void uploadDirectories(DynamicPropertyRegistry registry) {
+		registry.add("app.uploads.dir", () -> tempDir.resolve("uploads").toString());
+		registry.add("app.uploads.quarantine-dir", () -> tempDir.resolve("uploads-quarantine").toString());
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ImageStorageService imageStorageService;
+
+	@Autowired
+	private ImageVariantService imageVariantService;
+
+	// テストで作成したファイル（後始末用）
+	private final List<Path> createdFiles = new ArrayList<>();
+
+	@AfterEach
+	void deleteData() throws IOException {
+		jdbcTemplate.update("DELETE FROM recipe");
+		Path uploadPath = imageStorageService.getUploadPath();
+		Path quarantinePath = imageStorageService.getQuarantinePath();
+		for (Path file : createdFiles) {
+			Files.deleteIfExists(file);
+			imageVariantService.deleteVariants(file);
+			Files.deleteIfExists(quarantinePath.resolve(uploadPath.relativize(file)));
+			deleteEmptyParents(file.getParent(), uploadPath);
+			deleteEmptyParents(quarantinePath.resolve(uploadPath.relativize(file)).getParent(), quarantinePath.getParent());
+		}
+	}
+
+	@Test
+	void quarantinesOrphansAndRestoresThemWhenReferencedAgain() throws Exception {
+		String referenced = storeImage(0x3366CC, true);
+		String orphan = storeImage(0xCC6633, true);
+		String recent = storeImage(0x33CC66, false);
+		insertRecipe(1, referenced);
+		insertRecipe(2, MISSING_IMAGE);
+
+		// 元画像のないサイズ違いの画像と、保存が中断された一時ファイル
+		Path orphanVariant = imageStorageService.getUploadPath().resolve("ee/ee/" + "e".repeat(64) + ".card.jpg");
+		Files.createDirectories(orphanVariant.getParent());
+		Files.write(orphanVariant, new byte[]{1, 2, 3});
+		createdFiles.add(orphanVariant);
+		Path staleTemp = imageStorageService.getUploadPath().resolve(".upload-reconciliation-test.tmp");
+		Files.write(staleTemp, new byte[]{1, 2, 3});
+		Files.setLastModifiedTime(staleTemp, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+		createdFiles.add(staleTemp);
+
+		Map<String, Object> job = reconcile();
+		assertThat(job.get("referencedImages")).isEqualTo(2);
+		assertThat(job.get("quarantined")).isEqualTo(1);
+		assertThat(job.get("deletedVariants")).isEqualTo(1);
+		assertThat(job.get("deletedTempFiles")).isEqualTo(1);
+		assertThat(job.get("missingImages")).isEqualTo(1);
+		assertThat(job.get("missing")).isEqualTo(List.of(MISSING_IMAGE));
+
+		// 参照されている画像・保存直後の画像は残し、参照されていない画像は隔離先に移す
+		assertThat(imageStorageService.resolve(referenced)).isNotNull();
+		assertThat(imageStorageService.resolve(recent)).isNotNull();
+		assertThat(imageStorageService.resolve(orphan)).isNull();
+		assertThat(quarantined(orphan)).isRegularFile();
+		assertThat(orphanVariant).doesNotExist();
+		assertThat(staleTemp).doesNotExist();
+
+		// 隔離した画像がまた参照されたら元に戻す
+		insertRecipe(3, orphan);
+		job = reconcile();
+		assertThat(job.get("restored")).isEqualTo(1);
+		assertThat(job.get("quarantined")).isEqualTo(0);
+		assertThat(imageStorageService.resolve(orphan)).isNotNull();
+		assertThat(quarantined(orphan)).doesNotExist();
+	}
+
+	@Test
+	void purgesQuarantinedImagesAfterRetention() throws Exception {
+		String orphan = storeImage(0x6633CC, true);
+		assertThat(reconcile().get("quarantined")).isEqualTo(1);
+
+		// 保持期間内は残し、過ぎたら完全に削除する
+		assertThat(reconcile().get("purged")).isEqualTo(0);
+		Files.setLastModifiedTime(quarantined(orphan), FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+		assertThat(reconcile().get("purged")).isEqualTo(1);
+		assertThat(quarantined(orphan)).doesNotExist();
+		assertThat(imageStorageService.resolve(orphan)).isNull();
+	}
+
+	private Map<String, Object> reconcile() throws Exception {
+		String body = mockMvc.perform(post("/api/admin/upload-reconciliation").with(csrf()))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString();
+		String jobId = JsonPath.read(body, "$.id");
+		for (int i = 0; i < 200; i++) {
+			String job = mockMvc.perform(get("/api/admin/upload-reconciliation/{jobId}", jobId))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			String state = JsonPath.read(job, "$.state");
+			if (!state.equals("QUEUED") && !state.equals("RUNNING")) {
+				assertThat(state).isEqualTo("COMPLETED");
+				return JsonPath.read(job, "$");
+			}
+			Thread.sleep(50);
+		}
+		throw new AssertionError("整合性チェックが終わりません: " + jobId);
+	}
+
+	private void insertRecipe(long id, String imagePath) {
+		jdbcTemplate.update("INSERT INTO recipe (id, title, ingredients, instructions, favorite, image_path) VALUES (?, ?, ?, ?, ?, ?)",
+				id, "レシピ" + id, "材料", "作り方", false, imagePath);
+	}
+
+	private Path quarantined(String imagePath) {
+		return imageStorageService.getQuarantinePath().resolve(imagePath.substring("/uploads/".length()));
+	}
+
+	// old = true の場合は、保存直後の猶予期間を過ぎたものとして更新日時を過去にずらす
+	private String storeImage(int rgb, boolean old) throws Exception {
+		BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < 16; y++) {
+			for (int x = 0; x < 16; x++) {
+				image.setRGB(x, y, rgb);
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		String imagePath = imageStorageService.store(new ByteArrayInputStream(out.toByteArray()));
+		Path file = imageStorageService.resolve(imagePath);
+		createdFiles.add(file);
+
+		// サイズ違いの画像の生成が終わってから始める（隔離した後に生成されないように）
+		Path card = ImageVariantService.variantPath(file, ImageVariantService.Variant.CARD);
+		for (int i = 0; i < 200 && !Files.exists(card); i++) {
+			Thread.sleep(10);
+		}
+		if (old) {
+			Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+		}
+		return imagePath;
+	}
+
+	// 空になった振り分け用のディレクトリ（ab/cd）を削除する
+	private static void deleteEmptyParents(Path dir, Path root) throws IOException {
+		for (; dir != null && dir.startsWith(root) && !dir.equals(root); dir = dir.getParent()) {
+			if (!Files.isDirectory(dir)) {
+				continue;
+			}
+			try (var entries = Files.list(dir)) {
+				if (entries.findAny().isPresent()) {
+					return;
+				}
+			}
+			Files.delete(dir);
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.example.recipeapp.repository;
+
+import com.example.recipeapp.RecipeappApplication;
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.model.RecipeSummary;
+import com.example.recipeapp.service.RecipeImportService;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 組み込みのファイル DB 以外のバックエンドでも、マイグレーション・リポジトリのクエリ・インポートが動くことを確認する
+ * PostgreSQL は H2 の互換モード（識別子を小文字に変換する）で、サーバーモードは H2 の TCP サーバーで代用する。
+ */
+class DatabaseBackendTests {
+
+	// PostgreSQL と同じく、引用符なしの識別子・別名を小文字として扱う
+	private static final String POSTGRESQL_MODE_URL =
+			"jdbc:h2:mem:postgresql-mode;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+	private static Server server;
+
+	private static Path serverBaseDir;
+
+	@BeforeAll
+	static void startServer() throws Exception {
+		serverBaseDir = Files.createTempDirectory("recipeapp-h2server");
+		server = Server.createTcpServer("-tcpPort", "0", "-baseDir", serverBaseDir.toString(), "-ifNotExists").start();
+	}
+
+	@AfterAll
+	static void stopServer() throws Exception {
+		server.stop();
+		try (var files = Files.walk(serverBaseDir)) {
+			files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	void postgresqlCompatibilityMode() throws Exception {
+		try (ConfigurableApplicationContext context = start(POSTGRESQL_MODE_URL)) {
+			verifyRepositoryQueries(context);
+		}
+	}
+
+	@Test
+	void h2ServerMode() throws Exception {
+		String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/./server-mode";
+		try (ConfigurableApplicationContext context = start(url)) {
+			verifyRepositoryQueries(context);
+			verifyConcurrentAccess(context.getBean(DataSource.class));
+		}
+	}
+
+	// application.properties より優先させるためコマンドライン引数として渡す
+	private ConfigurableApplicationContext start(String url) {
+		return new SpringApplicationBuilder(RecipeappApplication.class).run(
+				"--spring.datasource.url=" + url,
+				"--server.port=0",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.org.hibernate.SQL=WARN",
+				"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+				"--logging.level.org.springframework.orm.jpa=WARN",
+				"--logging.level.org.springframework.transaction=WARN");
+	}
+
+	private void verifyRepositoryQueries(ConfigurableApplicationContext context) {
+		RecipeRepository recipeRepository = context.getBean(RecipeRepository.class);
+		Recipe curry = recipeRepository.save(recipe("カレー", true, "/uploads/aa/bb/curry.jpg", "和食", "時短"));
+		Recipe soup = recipeRepository.save(recipe("味噌汁", false, null, "和食"));
+		recipeRepository.save(recipe("パスタ", false, "/uploads/aa/bb/curry.jpg", "洋食"));
+
+		assertThat(recipeRepository.findSummariesAfter(0L, Limit.of(10))).hasSize(3);
+		assertThat(recipeRepository.findFavoriteSummariesAfter(0L, Limit.of(10)))
+				.extracting(RecipeSummary::getTitle).containsExactly("カレー");
+		assertThat(recipeRepository.findNonFavoriteSummariesAfter(0L, Limit.of(10)))
+				.extracting(RecipeSummary::getTitle).containsExactly("味噌汁", "パスタ");
+		assertThat(recipeRepository.findSummaryPageByFavorite(false, PageRequest.of(1, 1)))
+				.extracting(RecipeSummary::getTitle).containsExactly("パスタ");
+		assertThat(recipeRepository.findSummaryPage(PageRequest.of(0, 2))).hasSize(2);
+
+		// ネイティブクエリの別名（imagePath）がバックエンドによらず DTO に対応付けられる
+		List<RecipeSummary> japanese = recipeRepository.findCategorySummariesAfter("和食", 0L, Limit.of(10));
+		assertThat(japanese).extracting(RecipeSummary::getId).containsExactly(curry.getId(), soup.getId());
+		assertThat(japanese.get(0).getImagePath()).isEqualTo("/uploads/aa/bb/curry.jpg");
+		assertThat(japanese.get(0).isFavorite()).isTrue();
+
+		assertThat(recipeRepository.findCategoriesByRecipeIds(List.of(curry.getId())))
+				.extracting(RecipeRepository.RecipeCategory::getCategory).containsExactlyInAnyOrder("和食", "時短");
+		Map<String, Long> counts = recipeRepository.countRecipesByCategory().stream()
+				.collect(Collectors.toMap(RecipeRepository.CategoryCount::getCategory, RecipeRepository.CategoryCount::getCount));
+		assertThat(counts).containsEntry("和食", 2L).containsEntry("洋食", 1L);
+		assertThat(recipeRepository.findReferencedImagePaths(List.of("/uploads/aa/bb/curry.jpg", "/uploads/none.jpg")))
+				.containsExactly("/uploads/aa/bb/curry.jpg");
+		assertThat(recipeRepository.replaceImagePath("/uploads/aa/bb/curry.jpg", "/uploads/aa/bb/curry.webp")).isEqualTo(2);
+		assertThat(recipeRepository.findDistinctImagePaths()).containsExactly("/uploads/aa/bb/curry.webp");
+
+		// 一括削除で行ロック（FOR UPDATE）を取るネイティブクエリ
+		List<RecipeRepository.RecipeDeletion> locked = new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+				.execute(status -> recipeRepository.lockDeletionsByIds(List.of(curry.getId(), soup.getId())));
+		assertThat(locked).extracting(RecipeRepository.RecipeDeletion::getId).containsExactlyInAnyOrder(curry.getId(), soup.getId());
+		assertThat(locked).filteredOn(RecipeRepository.RecipeDeletion::isFavorite)
+				.extracting(RecipeRepository.RecipeDeletion::getImagePath).containsExactly("/uploads/aa/bb/curry.webp");
+
+		// インポートは JDBC のバッチ INSERT で生成キーを受け取る
+		String ndjson = """
+				{"title":"肉じゃが","ingredients":"じゃがいも","instructions":"煮る","favorite":true,"categories":["和食"]}
+				{"title":"餃子","ingredients":"豚ひき肉","instructions":"焼く","favorite":false,"categories":["中華","作り置き"]}
+				""";
+		RecipeImportService.ImportJob job = context.getBean(RecipeImportService.class).importRecipes(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), RecipeImportService.Format.NDJSON);
+		assertThat(job.getErrors()).isEmpty();
+		assertThat(job.getImported()).isEqualTo(2);
+		assertThat(recipeRepository.findCategorySummariesAfter("中華", 0L, Limit.of(10)))
+				.extracting(RecipeSummary::getTitle).containsExactly("餃子");
+	}
+
+	// 書き込み中のトランザクションがあっても、別の接続からの読み取り・別の行の更新は待たされない（MVCC）
+	private void verifyConcurrentAccess(DataSource dataSource) throws SQLException {
+		try (Connection writer = dataSource.getConnection(); Connection other = dataSource.getConnection()) {
+			writer.setAutoCommit(false);
+			try (PreparedStatement update = writer.prepareStatement("UPDATE recipe SET title = ? WHERE title = ?")) {
+				update.setString(1, "カレー（更新中）");
+				update.setString(2, "カレー");
+				assertThat(update.executeUpdate()).isEqualTo(1);
+			}
+
+			try (PreparedStatement select = other.prepareStatement("SELECT COUNT(*) FROM recipe WHERE title = ?")) {
+				select.setString(1, "カレー");
+				try (ResultSet rs = select.executeQuery()) {
+					rs.next();
+					assertThat(rs.getInt(1)).isEqualTo(1);
+				}
+			}
+			try (PreparedStatement update = other.prepareStatement("UPDATE recipe SET favorite = TRUE WHERE title = ?")) {
+				update.setString(1, "味噌汁");
+				assertThat(update.executeUpdate()).isEqualTo(1);
+			}
+			writer.rollback();
+		}
+	}
+
+	private Recipe recipe(String title, boolean favorite, String imagePath, String... categories) {
+		Recipe recipe = new Recipe();
+		recipe.setTitle(title);
+		recipe.setIngredients("材料");
+		recipe.setInstructions("作り方");
+		recipe.setFavorite(favorite);
+		recipe.setImagePath(imagePath);
+		recipe.setCategories(new HashSet<>(Set.of(categories)));
+		return recipe;
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.recipeapp.support;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.service.CategoryValidator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * ベンチマーク・負荷試験用のレシピデータを生成する
+ * 乱数のシードを固定しているため、同じ件数なら毎回同じデータになる（計測結果を比較できるようにするため）。
+ */
+public final class RecipeDataGenerator {
+
+	public static final long SEED = 20240601L;
+
+	// 画面で選べる定番のカテゴリ
+	public static final String[] CATEGORIES = {
+			"和食", "洋食", "中華", "韓国料理", "エスニック", "主菜", "副菜", "汁物", "ご飯もの", "麺類",
+			"お弁当", "おつまみ", "デザート", "パン", "作り置き", "時短", "ヘルシー", "パーティー"
+	};
+
+	// タイトル・材料に含まれる検索語（負荷試験の検索条件にも使う）
+	public static final String[] DISHES = {
+			"カレー", "肉じゃが", "麻婆豆腐", "ハンバーグ", "親子丼", "味噌汁", "ペペロンチーノ", "オムライス",
+			"唐揚げ", "餃子", "グラタン", "ビビンバ", "生姜焼き", "ポテトサラダ", "チャーハン", "パンケーキ"
+	};
+
+	public static final String[] INGREDIENTS = {
+			"豚肉", "鶏もも肉", "牛ひき肉", "玉ねぎ", "人参", "じゃがいも", "豆腐", "卵", "キャベツ", "ほうれん草",
+			"醤油", "味噌", "砂糖", "みりん", "にんにく", "生姜", "tomato", "cheese", "butter", "garlic"
+	};
+
+	private static final String[] MODIFIERS = {
+			"簡単", "本格", "ヘルシー", "定番", "絶品", "具だくさん", "ピリ辛", "さっぱり", "Quick", "Easy"
+	};
+
+	private static final String[] AMOUNTS = {
+			"100g", "200g", "300g", "1個", "2個", "1/2本", "1本", "大さじ1", "大さじ2", "小さじ1", "少々", "適量"
+	};
+
+	private static final String[] STEPS = {
+			"材料を一口大に切る", "フライパンで炒める", "鍋で煮込む", "調味料を加えて混ぜる",
+			"強火で焼き色をつける", "弱火で10分煮る", "器に盛り付ける", "冷蔵庫で冷やす"
+	};
+
+	private RecipeDataGenerator() {
+	}
+
+	/**
+	 * ID が 1 から count までのレシピを生成する
+	 */
+	public static List<Recipe> recipes(int count) {
+		List<Recipe> recipes = new ArrayList<>(count);
+		forEachRecipe(count, recipes::add);
+		return recipes;
+	}
+
+	/**
+	 * recipes(count) と同じレシピを1件ずつ生成して渡す（全件をメモリに保持しない）
+	 * 画像パスは約半数のレシピに設定する（実在するファイルではない）。
+	 */
+	public static void forEachRecipe(int count, Consumer<Recipe> consumer) {
+		Random random = new Random(SEED);
+		// 定番以外のカテゴリ（ユーザーが自由に入力したもの）はレシピ数に応じて増える
+		int customCategories = Math.max(1, count / 100);
+		for (int i = 1; i <= count; i++) {
+			Recipe recipe = new Recipe();
+			recipe.setId((long) i);
+			recipe.setTitle(pick(random, MODIFIERS) + pick(random, DISHES));
+			recipe.setIngredients(ingredients(random, 3 + random.nextInt(3)));
+			recipe.setInstructions(join(random, STEPS, 2 + random.nextInt(3), "。") + "。");
+			recipe.setFavorite(random.nextInt(10) == 0);
+			recipe.setReference(random.nextInt(3) == 0 ? "https://example.com/recipes/" + i : null);
+			recipe.setImagePath(random.nextBoolean() ? imagePath(random) : null);
+
+			// カテゴリは 0〜上限（MAX_CATEGORIES）件
+			Set<String> categories = new HashSet<>();
+			int categoryCount = random.nextInt(CategoryValidator.MAX_CATEGORIES + 1);
+			while (categories.size() < categoryCount) {
+				categories.add(random.nextInt(10) == 0
+						? "マイカテゴリ" + random.nextInt(customCategories)
+						: pick(random, CATEGORIES));
+			}
+			recipe.setCategories(categories);
+			consumer.accept(recipe);
+		}
+	}
+
+	/**
+	 * 登録・更新・インポートで送られてくるカテゴリの入力（重複・空白・上限超えを含む）を生成する
+	 */
+	public static List<List<String>> categoryInputs(int count) {
+		Random random = new Random(SEED);
+		List<List<String>> inputs = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int size = random.nextInt(6);
+			List<String> input = new ArrayList<>(size);
+			for (int j = 0; j < size; j++) {
+				switch (random.nextInt(8)) {
+					case 0 -> input.add("");
+					case 1 -> input.add(null);
+					case 2 -> input.add(" " + pick(random, CATEGORIES) + " ");
+					default -> input.add(pick(random, CATEGORIES));
+				}
+			}
+			inputs.add(input);
+		}
+		return inputs;
+	}
+
+	public static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	// 「豚肉 200g」の形式で1行に1つ
+	private static String ingredients(Random random, int count) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append('\n');
+			}
+			sb.append(pick(random, INGREDIENTS)).append(' ').append(pick(random, AMOUNTS));
+		}
+		return sb.toString();
+	}
+
+	private static String join(Random random, String[] values, int count, String delimiter) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(delimiter);
+			}
+			sb.append(pick(random, values));
+		}
+		return sb.toString();
+	}
+
+	private static String imagePath(Random random) {
+		StringBuilder hash = new StringBuilder(64);
+		for (int i = 0; i < 64; i++) {
+			hash.append(Character.forDigit(random.nextInt(16), 16));
+		}
+		return "/uploads/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".jpg";
+	}
+}